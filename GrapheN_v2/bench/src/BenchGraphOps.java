@@ -0,0 +1,134 @@
+import graphen.bench.GraphOps;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// adapter GraphOps dla benchmarkow JMH - musi byc w pakiecie domyslnym, tak jak Graph i GraphPartitioner
+// (fazy podzialu sa dostepne tylko w pakiecie)
+public class BenchGraphOps implements GraphOps {
+    @Override
+    public Object generate(String generator, int vertices) {
+        switch (generator) {
+            case "grid":
+                return SyntheticGraphs.grid(vertices);
+            case "rgg":
+                return SyntheticGraphs.randomGeometric(vertices, 2, 1);
+            default:
+                throw new IllegalArgumentException("Nieznany generator: " + generator);
+        }
+    }
+
+    @Override
+    public int vertexCount(Object graph) {
+        return ((Graph) graph).getVertexCount();
+    }
+
+    @Override
+    public void writeCSRRG(Object graph, String filePath) throws IOException {
+        SyntheticGraphs.writeCSRRG((Graph) graph, filePath);
+    }
+
+    @Override
+    public void writeDenseTXT(Object graph, int[] partition, String filePath) throws IOException {
+        SyntheticGraphs.writeDenseTXT((Graph) graph, partition, filePath);
+    }
+
+    @Override
+    public int[] stripePartition(Object graph, int parts) {
+        return SyntheticGraphs.stripePartition((Graph) graph, parts);
+    }
+
+    @Override
+    public Object loadCSRRGGraph(String filePath) throws IOException {
+        return Graph.loadCSRRGGraph(filePath);
+    }
+
+    @Override
+    public Object loadTXTGraph(String filePath) throws IOException {
+        return Graph.loadTXTGraph(filePath);
+    }
+
+    @Override
+    public Object loadCGraphTXT(String filePath) throws IOException {
+        return Graph.loadCGraphTXT(filePath);
+    }
+
+    @Override
+    public Object loadCGraphBIN(String filePath) throws IOException {
+        return Graph.loadCGraphBIN(filePath);
+    }
+
+    @Override
+    public Object loadSnapshot(String filePath, boolean verifyData) throws IOException {
+        return Graph.loadSnapshot(filePath, verifyData);
+    }
+
+    @Override
+    public void savePartitionedGraph(Object partitioner, Object graph, int[] partition, String filePath) throws IOException {
+        ((GraphPartitioner) partitioner).savePartitionedGraph((Graph) graph, partition, filePath);
+    }
+
+    @Override
+    public void savePartitionedGraphBIN(Object partitioner, Object graph, int[] partition, String filePath) throws IOException {
+        ((GraphPartitioner) partitioner).savePartitionedGraphBIN((Graph) graph, partition, filePath);
+    }
+
+    @Override
+    public void saveSnapshot(Object graph, String filePath) throws IOException {
+        ((Graph) graph).saveSnapshot(filePath);
+    }
+
+    @Override
+    public Object partitioner(Object graph, int parts, double balanceFactor) {
+        return new GraphPartitioner((Graph) graph, parts, balanceFactor);
+    }
+
+    @Override
+    public int[] partition(Object partitioner, long seed, int threads) throws IOException {
+        GraphPartitioner current = (GraphPartitioner) partitioner;
+        current.setSeed(seed);
+        return current.partition(1, threads).getPartition();
+    }
+
+    @Override
+    public Object symmetrize(Object graph, ForkJoinPool pool) {
+        return GraphPartitioner.symmetrize((Graph) graph, pool);
+    }
+
+    @Override
+    public Object coarsen(Object partitioner, Object fineGraph, long seed, ForkJoinPool pool) {
+        return ((GraphPartitioner) partitioner).coarsen((Graph) fineGraph, new Random(seed), pool, null);
+    }
+
+    @Override
+    public Object coarsestGraph(Object fineGraph, Object levels) {
+        return GraphPartitioner.coarsestGraph((Graph) fineGraph, levels(levels));
+    }
+
+    @Override
+    public int[] initialPartition(Object partitioner, Object coarseGraph, long seed) {
+        return ((GraphPartitioner) partitioner).initialPartition((Graph) coarseGraph, new Random(seed));
+    }
+
+    @Override
+    public int[] uncoarsen(Object partitioner, Object fineGraph, Object levels, int[] coarsePartition) {
+        return ((GraphPartitioner) partitioner).uncoarsen((Graph) fineGraph, levels(levels), coarsePartition, null);
+    }
+
+    @Override
+    public int[] ensureConnectivity(Object partitioner, Object fineGraph, int[] partition) {
+        return ((GraphPartitioner) partitioner).ensureConnectivity((Graph) fineGraph, partition);
+    }
+
+    @Override
+    public boolean balancePartitions(Object partitioner, Object fineGraph, int[] partition) {
+        return ((GraphPartitioner) partitioner).balancePartitions((Graph) fineGraph, partition);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<GraphPartitioner.CoarseLevel> levels(Object levels) {
+        return (List<GraphPartitioner.CoarseLevel>) levels;
+    }
+}
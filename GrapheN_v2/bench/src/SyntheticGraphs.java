@@ -0,0 +1,165 @@
+import java.io.IOException;
+import java.util.Random;
+
+// generatory grafow testowych i zapis do formatow wczytywanych przez Graph.load*
+// wierzcholki sa numerowane wierszami (y, potem x), tak jak w plikach .csrrg
+public class SyntheticGraphs {
+    // macierz sasiedztwa w formacie loadTXTGraph ma n^2 pol - wieksze grafy sa pomijane
+    public static final int DENSE_TXT_LIMIT = 4096;
+
+    private SyntheticGraphs() {
+    }
+
+    // pelna siatka width x height, krawedzie do sasiada z prawej i z dolu
+    public static Graph grid(int vertices) {
+        int width = Math.max(1, (int) Math.round(Math.sqrt(vertices)));
+        int height = (vertices + width - 1) / width;
+        GraphBuilder builder = new GraphBuilder(vertices, 2 * vertices);
+        for (int v = 0; v < vertices; v++) {
+            builder.addVertex(v % width, v / width);
+        }
+        for (int v = 0; v < vertices; v++) {
+            int x = v % width;
+            if (x + 1 < width && v + 1 < vertices) builder.addEdge(v, v + 1);
+            if (v + width < vertices) builder.addEdge(v, v + width);
+        }
+        return builder.build();
+    }
+
+    // losowy graf geometryczny: wierzcholki w losowych komorkach siatki (polowa zajeta),
+    // krawedz gdy odleglosc miedzy komorkami jest nie wieksza niz radius
+    public static Graph randomGeometric(int vertices, int radius, long seed) {
+        Random random = new Random(seed);
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt(2.0 * vertices)));
+        long cells = (long) side * side;
+
+        //wybor dokladnie vertices komorek, kolejnosc wierszami
+        int[] cellId = new int[side * side];
+        GraphBuilder builder = new GraphBuilder(vertices, 4 * vertices);
+        long remaining = vertices;
+        for (int c = 0; c < cells; c++) {
+            cellId[c] = -1;
+            if (remaining > 0 && random.nextDouble() * (cells - c) < remaining) {
+                cellId[c] = builder.addVertex(c % side, c / side);
+                remaining--;
+            }
+        }
+
+        int radius2 = radius * radius;
+        for (int c = 0; c < cells; c++) {
+            int v = cellId[c];
+            if (v == -1) continue;
+            int x = c % side;
+            int y = c / side;
+            //tylko sasiedzi pozniejsi w kolejnosci wierszami - kazda krawedz raz
+            for (int dy = 0; dy <= radius && y + dy < side; dy++) {
+                for (int dx = -radius; dx <= radius; dx++) {
+                    if (dy == 0 && dx <= 0) continue;
+                    if (dx * dx + dy * dy > radius2 || x + dx < 0 || x + dx >= side) continue;
+                    int u = cellId[(y + dy) * side + x + dx];
+                    if (u != -1) builder.addEdge(v, u);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // podzial na poziome pasy - do zapisu plikow w formatach wynikowych
+    public static int[] stripePartition(Graph graph, int parts) {
+        int n = graph.getVertexCount();
+        int[] partition = new int[n];
+        for (int v = 0; v < n; v++) {
+            partition[v] = (int) ((long) v * parts / n);
+        }
+        return partition;
+    }
+
+    public static void writeCSRRG(Graph graph, String filePath) throws IOException {
+        int n = graph.getVertexCount();
+        try (ChannelWriter out = new ChannelWriter(filePath)) {
+            int maxX = 0, maxY = 0;
+            for (int v = 0; v < n; v++) {
+                maxX = Math.max(maxX, graph.getX(v));
+                maxY = Math.max(maxY, graph.getY(v));
+            }
+            out.writeAsciiInt(maxX + 1);
+            out.writeByte('\n');
+
+            for (int v = 0; v < n; v++) {
+                if (v > 0) out.writeByte(';');
+                out.writeAsciiInt(graph.getX(v));
+            }
+            out.writeByte('\n');
+
+            //poczatek kazdego wiersza (rowniez pustego)
+            int v = 0;
+            for (int y = 0; y <= maxY; y++) {
+                while (v < n && graph.getY(v) < y) v++;
+                if (y > 0) out.writeByte(';');
+                out.writeAsciiInt(v);
+            }
+            out.writeByte('\n');
+
+            //grupy: wierzcholek i jego sasiedzi
+            IntList groupStarts = new IntList();
+            int written = 0;
+            for (int u = 0; u < n; u++) {
+                if (graph.degree(u) == 0) continue;
+                groupStarts.add(written);
+                if (written > 0) out.writeByte(';');
+                out.writeAsciiInt(u);
+                written++;
+                for (int e = graph.neighborStart(u); e < graph.neighborEnd(u); e++) {
+                    out.writeByte(';');
+                    out.writeAsciiInt(graph.neighborAt(e));
+                    written++;
+                }
+            }
+            out.writeByte('\n');
+            for (int i = 0; i < groupStarts.size(); i++) {
+                if (i > 0) out.writeByte(';');
+                out.writeAsciiInt(groupStarts.get(i));
+            }
+            out.writeByte('\n');
+        }
+    }
+
+    // format loadTXTGraph: naglowek, gesta macierz sasiedztwa i lista kolorow
+    public static void writeDenseTXT(Graph graph, int[] partition, String filePath) throws IOException {
+        int n = graph.getVertexCount();
+        try (ChannelWriter out = new ChannelWriter(filePath)) {
+            writeLine(out, "Graf testowy");
+            writeLine(out, "Liczba wierzcholkow: " + n);
+            writeLine(out, "");
+            writeLine(out, "Macierz sasiedztwa:");
+            writeLine(out, "");
+            boolean[] row = new boolean[n];
+            for (int v = 0; v < n; v++) {
+                for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) row[graph.neighborAt(e)] = true;
+                out.writeByte('[');
+                for (int u = 0; u < n; u++) {
+                    out.writeByte(row[u] ? '1' : '0');
+                    out.writeByte('.');
+                    if (u + 1 < n) out.writeByte(' ');
+                    row[u] = false;
+                }
+                out.writeByte(']');
+                out.writeByte('\n');
+            }
+            writeLine(out, "");
+            writeLine(out, "Kolory:");
+            writeLine(out, "");
+            for (int v = 0; v < n; v++) {
+                out.writeAsciiInt(v);
+                out.writeBytes(new byte[]{' ', '-', ' '});
+                out.writeAsciiInt(partition[v]);
+                out.writeByte('\n');
+            }
+        }
+    }
+
+    private static void writeLine(ChannelWriter out, String line) throws IOException {
+        for (int i = 0; i < line.length(); i++) out.writeByte(line.charAt(i));
+        out.writeByte('\n');
+    }
+}
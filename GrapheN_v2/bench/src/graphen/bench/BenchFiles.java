@@ -0,0 +1,26 @@
+package graphen.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// katalog roboczy z plikami wejsciowymi i wynikowymi benchmarkow
+final class BenchFiles {
+    private BenchFiles() {
+    }
+
+    static Path createWorkDir() throws IOException {
+        return Files.createTempDirectory("graphen-bench");
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package graphen.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// porownanie dwoch plikow wynikow JMH (-rf json); kod wyjscia 1, gdy ktorys pomiar pogorszyl sie o wiecej niz threshold
+//
+// uzycie: CompareResults poprzedni.json biezacy.json [threshold=0.10]
+public final class CompareResults {
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uzycie: CompareResults poprzedni.json biezacy.json [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length >= 3 ? Double.parseDouble(args[2]) : 0.10;
+        Map<String, Score> previous = readScores(args[0]);
+        Map<String, Score> current = readScores(args[1]);
+        boolean ok = true;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = previous.get(entry.getKey());
+            Score after = entry.getValue();
+            if (before == null || before.value <= 0 || after.value <= 0) continue;
+            //w trybie przepustowosci wiecej znaczy lepiej, w pozostalych (czas) mniej
+            double slowdown = after.throughput ? before.value / after.value : after.value / before.value;
+            boolean regression = slowdown > 1 + threshold;
+            if (regression) ok = false;
+            System.out.printf(Locale.ROOT, "%-70s %12.3f -> %12.3f %-8s x%.2f%s%n", entry.getKey(),
+                    before.value, after.value, after.unit, slowdown, regression ? "  REGRESSION" : "");
+        }
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static final class Score {
+        final double value;
+        final String unit;
+        final boolean throughput;
+
+        Score(double value, String unit, boolean throughput) {
+            this.value = value;
+            this.unit = unit;
+            this.throughput = throughput;
+        }
+    }
+
+    // klucz: nazwa benchmarku i parametry, np. "LoadBenchmark.loadCSRRGGraph generator=grid size=1000"
+    @SuppressWarnings("unchecked")
+    private static Map<String, Score> readScores(String path) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (Object item : (List<Object>) new JsonReader(json).read()) {
+            Map<String, Object> run = (Map<String, Object>) item;
+            StringBuilder key = new StringBuilder((String) run.get("benchmark"));
+            int lastDot = key.lastIndexOf(".");
+            int classDot = key.lastIndexOf(".", lastDot - 1);
+            key.delete(0, classDot + 1);
+            Map<String, Object> params = (Map<String, Object>) run.get("params");
+            if (params != null) {
+                for (Map.Entry<String, Object> param : params.entrySet()) {
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue());
+                }
+            }
+            Map<String, Object> metric = (Map<String, Object>) run.get("primaryMetric");
+            //brak wyniku (np. "NaN") - pomiar pomijany
+            if (!(metric.get("score") instanceof Number)) continue;
+            scores.put(key.toString(), new Score(((Number) metric.get("score")).doubleValue(),
+                    (String) metric.get("scoreUnit"), "thrpt".equals(run.get("mode"))));
+        }
+        return scores;
+    }
+
+    // minimalny parser JSON wystarczajacy dla plikow wynikow JMH (obiekty, tablice, napisy, liczby, stale)
+    private static final class JsonReader {
+        private final String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Object read() throws IOException {
+            skipBlank();
+            if (pos >= text.length()) throw error("Nieoczekiwany koniec pliku");
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{':
+                    return readObject();
+                case '[':
+                    return readArray();
+                case '"':
+                    return readString();
+                case 't':
+                    return readWord("true", Boolean.TRUE);
+                case 'f':
+                    return readWord("false", Boolean.FALSE);
+                case 'n':
+                    return readWord("null", null);
+                default:
+                    return readNumber();
+            }
+        }
+
+        private Map<String, Object> readObject() throws IOException {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos++;
+            skipBlank();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipBlank();
+                String name = readString();
+                skipBlank();
+                expect(':');
+                object.put(name, read());
+                skipBlank();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect('}');
+                return object;
+            }
+        }
+
+        private List<Object> readArray() throws IOException {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipBlank();
+            if (peek() == ']') {
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(read());
+                skipBlank();
+                if (peek() == ',') {
+                    pos++;
+                    continue;
+                }
+                expect(']');
+                return array;
+            }
+        }
+
+        private String readString() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) break;
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) throw error("Niepelna sekwencja \\u");
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                }
+            }
+            throw error("Niezakonczony napis");
+        }
+
+        private Object readNumber() throws IOException {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw error("Niepoprawna wartosc");
+            return Double.parseDouble(text.substring(start, pos));
+        }
+
+        private Object readWord(String word, Object value) throws IOException {
+            if (!text.startsWith(word, pos)) throw error("Niepoprawna wartosc");
+            pos += word.length();
+            return value;
+        }
+
+        private void expect(char c) throws IOException {
+            if (peek() != c) throw error("Oczekiwano '" + c + "'");
+            pos++;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void skipBlank() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " (znak " + pos + ")");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package graphen.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// loadTXTGraph osobno: plik to gesta macierz n x n, wiec rozmiary koncza sie na SyntheticGraphs.DENSE_TXT_LIMIT
+// (osobna nazwa parametru - profil full nadpisuje tylko size)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DenseLoadBenchmark {
+    @Param({"grid", "rgg"})
+    public String generator;
+
+    @Param({"1000", "4096"})
+    public int denseSize;
+
+    @Param("8")
+    public int parts;
+
+    private GraphOps ops;
+    private Path work;
+    private String denseTxt;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ops = GraphOps.load();
+        work = BenchFiles.createWorkDir();
+        Object graph = ops.generate(generator, denseSize);
+        denseTxt = work.resolve("graph_dense.txt").toString();
+        ops.writeDenseTXT(graph, ops.stripePartition(graph, parts), denseTxt);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchFiles.delete(work);
+    }
+
+    @Benchmark
+    public Object loadTXTGraph() throws IOException {
+        return ops.loadTXTGraph(denseTxt);
+    }
+}
@@ -0,0 +1,68 @@
+package graphen.bench;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+// operacje aplikacji uzywane przez benchmarki
+// aplikacja lezy w pakiecie domyslnym, ktorego nie da sie zaimportowac z pakietu graphen.bench, dlatego
+// implementacja (BenchGraphOps) jest w pakiecie domyslnym, a grafy, podzialy i poziomy redukcji
+// przekazywane sa jako Object - benchmarki tylko je przechowuja i oddaja z powrotem
+public interface GraphOps {
+    static GraphOps load() {
+        try {
+            return (GraphOps) Class.forName("BenchGraphOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Brak adaptera BenchGraphOps na classpath", e);
+        }
+    }
+
+    // generator: "grid" albo "rgg"
+    Object generate(String generator, int vertices);
+
+    int vertexCount(Object graph);
+
+    // pliki wejsciowe; partition - podzial zapisywany w formatach wynikowych
+    void writeCSRRG(Object graph, String filePath) throws IOException;
+
+    void writeDenseTXT(Object graph, int[] partition, String filePath) throws IOException;
+
+    int[] stripePartition(Object graph, int parts);
+
+    // wczytywanie
+    Object loadCSRRGGraph(String filePath) throws IOException;
+
+    Object loadTXTGraph(String filePath) throws IOException;
+
+    Object loadCGraphTXT(String filePath) throws IOException;
+
+    Object loadCGraphBIN(String filePath) throws IOException;
+
+    // verifyData == false - bez CRC32C danych (struktura CSR sprawdzana zawsze)
+    Object loadSnapshot(String filePath, boolean verifyData) throws IOException;
+
+    // zapis
+    void savePartitionedGraph(Object partitioner, Object graph, int[] partition, String filePath) throws IOException;
+
+    void savePartitionedGraphBIN(Object partitioner, Object graph, int[] partition, String filePath) throws IOException;
+
+    void saveSnapshot(Object graph, String filePath) throws IOException;
+
+    // podzial i jego fazy (GraphPartitioner); pool == null - w biezacym watku
+    Object partitioner(Object graph, int parts, double balanceFactor);
+
+    int[] partition(Object partitioner, long seed, int threads) throws IOException;
+
+    Object symmetrize(Object graph, ForkJoinPool pool);
+
+    Object coarsen(Object partitioner, Object fineGraph, long seed, ForkJoinPool pool);
+
+    Object coarsestGraph(Object fineGraph, Object levels);
+
+    int[] initialPartition(Object partitioner, Object coarseGraph, long seed);
+
+    int[] uncoarsen(Object partitioner, Object fineGraph, Object levels, int[] coarsePartition);
+
+    int[] ensureConnectivity(Object partitioner, Object fineGraph, int[] partition);
+
+    boolean balancePartitions(Object partitioner, Object fineGraph, int[] partition);
+}
@@ -0,0 +1,92 @@
+package graphen.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// wczytywanie grafu we wszystkich formatach; pliki zapisywane raz na probe (trial) z grafu syntetycznego
+// rozmiar 10^7 tylko w profilu full (gradle :bench:jmh -Pjmh.profile=full)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({"grid", "rgg"})
+    public String generator;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param("8")
+    public int parts;
+
+    private GraphOps ops;
+    private Path work;
+    private String csrrg;
+    private String partitionedTxt;
+    private String partitionedBin;
+    private String snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ops = GraphOps.load();
+        work = BenchFiles.createWorkDir();
+        Object graph = ops.generate(generator, size);
+        int[] stripes = ops.stripePartition(graph, parts);
+        Object writer = ops.partitioner(graph, parts, 0.1);
+        csrrg = work.resolve("graph.csrrg").toString();
+        partitionedTxt = work.resolve("graph_partitioned.txt").toString();
+        partitionedBin = work.resolve("graph_partitioned.bin").toString();
+        snapshot = work.resolve("graph.gsnap").toString();
+        ops.writeCSRRG(graph, csrrg);
+        ops.savePartitionedGraph(writer, graph, stripes, partitionedTxt);
+        ops.savePartitionedGraphBIN(writer, graph, stripes, partitionedBin);
+        ops.saveSnapshot(graph, snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchFiles.delete(work);
+    }
+
+    @Benchmark
+    public Object loadCSRRGGraph() throws IOException {
+        return ops.loadCSRRGGraph(csrrg);
+    }
+
+    @Benchmark
+    public Object loadCGraphTXT() throws IOException {
+        return ops.loadCGraphTXT(partitionedTxt);
+    }
+
+    @Benchmark
+    public Object loadCGraphBIN() throws IOException {
+        return ops.loadCGraphBIN(partitionedBin);
+    }
+
+    @Benchmark
+    public Object loadSnapshot() throws IOException {
+        return ops.loadSnapshot(snapshot, true);
+    }
+
+    @Benchmark
+    public Object loadSnapshotNoCrc() throws IOException {
+        return ops.loadSnapshot(snapshot, false);
+    }
+}
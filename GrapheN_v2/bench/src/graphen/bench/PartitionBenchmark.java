@@ -0,0 +1,110 @@
+package graphen.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// kazda faza GraphPartitioner osobno (nazwy jak w PhaseTimer.PHASES) oraz caly podzial;
+// wejscie fazy to wynik poprzednich faz policzony raz w setUp dla stalego seeda
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionBenchmark {
+    private static final long SEED = 1;
+
+    @Param({"grid", "rgg"})
+    public String generator;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param("8")
+    public int parts;
+
+    @Param("1")
+    public int threads;
+
+    private GraphOps ops;
+    private ForkJoinPool pool;
+    private Object graph;
+    private Object partitioner;
+    private Object fineGraph;
+    private Object levels;
+    private Object coarseGraph;
+    private int[] coarsePartition;
+    private int[] uncoarsened;
+    private int[] connected;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ops = GraphOps.load();
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        graph = ops.generate(generator, size);
+        partitioner = ops.partitioner(graph, parts, 0.1);
+        fineGraph = ops.symmetrize(graph, pool);
+        levels = ops.coarsen(partitioner, fineGraph, SEED, pool);
+        coarseGraph = ops.coarsestGraph(fineGraph, levels);
+        coarsePartition = ops.initialPartition(partitioner, coarseGraph, SEED);
+        uncoarsened = ops.uncoarsen(partitioner, fineGraph, levels, coarsePartition);
+        connected = ops.ensureConnectivity(partitioner, fineGraph, uncoarsened.clone());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // nieskierowany graf poziomu 0 budowany przed V-cycle
+    @Benchmark
+    public Object symmetrize() {
+        return ops.symmetrize(graph, pool);
+    }
+
+    @Benchmark
+    public Object coarsen() {
+        return ops.coarsen(partitioner, fineGraph, SEED, pool);
+    }
+
+    @Benchmark
+    public int[] initial() {
+        return ops.initialPartition(partitioner, coarseGraph, SEED);
+    }
+
+    @Benchmark
+    public int[] uncoarsen() {
+        return ops.uncoarsen(partitioner, fineGraph, levels, coarsePartition);
+    }
+
+    // connectivity i balance zmieniaja podzial w miejscu - kopiowanie tablicy jest pomijalne wobec fazy
+    @Benchmark
+    public int[] connectivity() {
+        return ops.ensureConnectivity(partitioner, fineGraph, uncoarsened.clone());
+    }
+
+    @Benchmark
+    public boolean balance() {
+        return ops.balancePartitions(partitioner, fineGraph, connected.clone());
+    }
+
+    @Benchmark
+    public int[] partition() throws IOException {
+        return ops.partition(partitioner, SEED, threads);
+    }
+}
@@ -0,0 +1,78 @@
+package graphen.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// zapis wyniku podzialu (.txt, .bin) i zrzutu grafu; podzial liczony raz w setUp
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveBenchmark {
+    @Param({"grid", "rgg"})
+    public String generator;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param("8")
+    public int parts;
+
+    private GraphOps ops;
+    private Path work;
+    private Object graph;
+    private Object partitioner;
+    private int[] partition;
+    private String savedTxt;
+    private String savedBin;
+    private String savedSnapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ops = GraphOps.load();
+        work = BenchFiles.createWorkDir();
+        graph = ops.generate(generator, size);
+        partitioner = ops.partitioner(graph, parts, 0.1);
+        partition = ops.partition(partitioner, 1, 1);
+        savedTxt = work.resolve("saved.txt").toString();
+        savedBin = work.resolve("saved.bin").toString();
+        savedSnapshot = work.resolve("saved.gsnap").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchFiles.delete(work);
+    }
+
+    @Benchmark
+    public void savePartitionedGraph() throws IOException {
+        ops.savePartitionedGraph(partitioner, graph, partition, savedTxt);
+    }
+
+    @Benchmark
+    public void savePartitionedGraphBIN() throws IOException {
+        ops.savePartitionedGraphBIN(partitioner, graph, partition, savedBin);
+    }
+
+    @Benchmark
+    public void saveSnapshot() throws IOException {
+        ops.saveSnapshot(graph, savedSnapshot);
+    }
+}
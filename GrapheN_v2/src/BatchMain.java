@@ -0,0 +1,229 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+// podzial wielu plikow .csrrg bez interfejsu graficznego (nie korzysta z AWT/Swing)
+//
+// uzycie: BatchMain <katalog|glob> [-k 2] [-m 10] [-f txt|bin|gsnap] [-j watki] [-n grafy_w_pamieci] [-o katalog_wynikow]
+//   np. BatchMain "data/og_files/*.csrrg" -k 8 -m 5 -f bin -j 4 -n 2
+public class BatchMain {
+    private int parts = 2;
+    private int margin = 10;
+    private String format = "txt";
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int maxInMemory = -1;
+    private String outputDir;
+    private String input;
+
+    public static void main(String[] args) throws InterruptedException {
+        //ustawiane przed jakimkolwiek uzyciem klas AWT
+        System.setProperty("java.awt.headless", "true");
+        BatchMain batch = new BatchMain();
+        try {
+            batch.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Uzycie: BatchMain <katalog|glob> [-k 2] [-m 10] [-f txt|bin|gsnap] [-j watki] [-n grafy_w_pamieci] [-o katalog_wynikow]");
+            System.exit(2);
+        }
+
+        List<Path> files;
+        try {
+            files = findInputs(batch.input);
+        } catch (IOException e) {
+            System.err.println("Nie mozna odczytac wejscia: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (files.isEmpty()) {
+            System.err.println("Brak plikow .csrrg dla: " + batch.input);
+            System.exit(2);
+        }
+        System.exit(batch.run(files) ? 0 : 1);
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                if (input != null) throw new IllegalArgumentException("Podano wiecej niz jedno wejscie: " + arg);
+                input = arg;
+                continue;
+            }
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Brak wartosci dla " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "-k":
+                    parts = Integer.parseInt(value);
+                    break;
+                case "-m":
+                    margin = Integer.parseInt(value);
+                    break;
+                case "-f":
+                    format = value.startsWith(".") ? value.substring(1) : value;
+                    if (!format.equals("txt") && !format.equals("bin") && !format.equals("gsnap")) {
+                        throw new IllegalArgumentException("Nieznany format wyjscia: " + value);
+                    }
+                    break;
+                case "-j":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "-n":
+                    maxInMemory = Integer.parseInt(value);
+                    break;
+                case "-o":
+                    outputDir = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Nieznana opcja: " + arg);
+            }
+        }
+        if (input == null) throw new IllegalArgumentException("Nie podano katalogu ani wzorca plikow");
+        if (parts < 1) throw new IllegalArgumentException("Liczba partycji musi byc dodatnia");
+        workers = Math.max(1, workers);
+        if (maxInMemory < 1) maxInMemory = workers;
+    }
+
+    // katalog - wszystkie pliki .csrrg w nim; w przeciwnym razie wzorzec glob (np. dane/**/*.csrrg)
+    private static List<Path> findInputs(String input) throws IOException {
+        Path path = Paths.get(input);
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*.csrrg")) {
+                for (Path file : stream) files.add(file);
+            }
+        } else if (Files.isRegularFile(path)) {
+            files.add(path);
+        } else {
+            //przeszukiwany jest najdluzszy poczatek sciezki bez znakow wzorca
+            String normalized = input.replace('\\', '/');
+            int wildcard = indexOfWildcard(normalized);
+            int slash = normalized.lastIndexOf('/', wildcard);
+            Path root = Paths.get(slash < 0 ? "." : normalized.substring(0, slash + 1));
+            String pattern = slash < 0 ? normalized : normalized.substring(slash + 1);
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            if (Files.isDirectory(root)) {
+                try (Stream<Path> walk = Files.walk(root)) {
+                    walk.filter(Files::isRegularFile)
+                            .filter(p -> matcher.matches(root.relativize(p)))
+                            .forEach(files::add);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return pattern.length();
+    }
+
+    // true gdy wszystkie pliki zostaly podzielone
+    private boolean run(List<Path> files) throws InterruptedException {
+        System.out.printf(Locale.ROOT, "%d files, k=%d, margin=%d%%, format=%s, workers=%d, max graphs in memory=%d%n",
+                files.size(), parts, margin, format, workers, maxInMemory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        //zezwolenie pobierane przed wczytaniem grafu i oddawane po zapisie wyniku
+        Semaphore inMemory = new Semaphore(maxInMemory);
+        List<Future<FileStats>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (Path file : files) {
+                inMemory.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return processFile(file);
+                        } finally {
+                            inMemory.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    inMemory.release();
+                    throw e;
+                }
+            }
+
+            int succeeded = 0;
+            long vertices = 0;
+            long edges = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    FileStats stats = futures.get(i).get();
+                    succeeded++;
+                    vertices += stats.vertices;
+                    edges += stats.edges;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    System.err.println("FAILED " + files.get(i) + ": " + cause);
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "%nDone: %d/%d files in %.2f s%n", succeeded, files.size(), seconds);
+            System.out.printf(Locale.ROOT, "Throughput: %.2f files/s, %.0f vertices/s, %.0f edges/s%n",
+                    succeeded / seconds, vertices / seconds, edges / seconds);
+            return succeeded == files.size();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class FileStats {
+        final int vertices;
+        final long edges;
+
+        FileStats(int vertices, long edges) {
+            this.vertices = vertices;
+            this.edges = edges;
+        }
+    }
+
+    private FileStats processFile(Path file) throws IOException {
+        long t0 = System.nanoTime();
+        Graph graph = Graph.loadCSRRGGraph(file.toString());
+        long t1 = System.nanoTime();
+
+        GraphPartitioner partitioner = new GraphPartitioner(graph, parts, margin / 100.0);
+        PartitionResult result = partitioner.partition();
+        long t2 = System.nanoTime();
+
+        String outputPath = outputPath(file);
+        if (format.equals("bin")) {
+            partitioner.savePartitionedGraphBIN(graph, result.getPartition(), outputPath);
+        } else if (format.equals("gsnap")) {
+            partitioner.savePartitionedGraphSnapshot(graph, result.getPartition(), outputPath);
+        } else {
+            partitioner.savePartitionedGraph(graph, result.getPartition(), outputPath);
+        }
+        result.writeReport(outputPath);
+        long t3 = System.nanoTime();
+
+        System.out.printf(Locale.ROOT,
+                "%s: V=%d E=%d load %.1f ms, partition %.1f ms, save %.1f ms, cut=%d, imbalance=%.3f%s -> %s%n",
+                file.getFileName(), graph.getVertexCount(), graph.getEdgeCount(),
+                (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6,
+                result.getEdgeCut(), result.getImbalance(), result.isBalanced() ? "" : " (margin not met)", outputPath);
+        return new FileStats(graph.getVertexCount(), graph.getEdgeCount());
+    }
+
+    // nazwa jak w GraphPartitioningPanel: <plik>_partitioned.<format>, obok wejscia albo w katalogu -o
+    private String outputPath(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".csrrg")) name = name.substring(0, name.length() - ".csrrg".length());
+        name += "_partitioned." + format;
+        if (outputDir == null) {
+            Path parent = file.toAbsolutePath().getParent();
+            return parent.resolve(name).toString();
+        }
+        Path dir = Files.createDirectories(Paths.get(outputDir));
+        return dir.resolve(name).toString();
+    }
+}
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+
+// piramida gestosci do rysowania bardzo oddalonego widoku: poziom 0 to siatka komorek
+// o boku baseCellSize (w jednostkach grafu), kazdy kolejny poziom laczy 2x2 komorki
+// komorka pamieta liczbe wierzcholkow i przewazajaca partycje (kolor)
+public class DensityPyramid {
+    private final int minX;
+    private final int minY;
+    private final int baseCellSize;
+    private final int[] cellsX;
+    private final int[] cellsY;
+    private final int[][] counts;
+    private final int[][] dominant;
+
+    public DensityPyramid(Graph graph, int baseCellSize) {
+        this.baseCellSize = Math.max(1, baseCellSize);
+        int n = graph.getVertexCount();
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        int minColor = Integer.MAX_VALUE, maxColor = Integer.MIN_VALUE;
+        for (int v = 0; v < n; v++) {
+            x0 = Math.min(x0, graph.getX(v));
+            y0 = Math.min(y0, graph.getY(v));
+            x1 = Math.max(x1, graph.getX(v));
+            y1 = Math.max(y1, graph.getY(v));
+            minColor = Math.min(minColor, graph.getColor(v));
+            maxColor = Math.max(maxColor, graph.getColor(v));
+        }
+        if (n == 0) {
+            x0 = y0 = x1 = y1 = 0;
+            minColor = maxColor = 0;
+        }
+        minX = x0;
+        minY = y0;
+
+        int levels = 1;
+        int w = (int) (((long) x1 - x0) / this.baseCellSize + 1);
+        int h = (int) (((long) y1 - y0) / this.baseCellSize + 1);
+        for (int a = w, b = h; a > 1 || b > 1; a = (a + 1) / 2, b = (b + 1) / 2) levels++;
+        cellsX = new int[levels];
+        cellsY = new int[levels];
+        counts = new int[levels][];
+        dominant = new int[levels][];
+
+        //poziom 0: zliczanie partycji w komorce przez sortowanie wierzcholkow wg komorek
+        cellsX[0] = w;
+        cellsY[0] = h;
+        int cells = w * h;
+        int[] start = new int[cells + 1];
+        for (int v = 0; v < n; v++) start[baseCell(graph, v, w) + 1]++;
+        for (int c = 0; c < cells; c++) start[c + 1] += start[c];
+        int[] fill = start.clone();
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) order[fill[baseCell(graph, v, w)]++] = v;
+
+        counts[0] = new int[cells];
+        dominant[0] = new int[cells];
+        IntList parts = new IntList();
+        //liczniki partycji wspolne dla wszystkich komorek (kolory to numery partycji, zakres jest maly);
+        //przy nietypowo rozrzuconych kolorach z pliku - sortowanie kolorow komorki
+        long colorRange = (long) maxColor - minColor + 1;
+        int[] colorCounts = colorRange <= Math.max(1024, n) ? new int[(int) colorRange] : null;
+        for (int c = 0; c < cells; c++) {
+            counts[0][c] = start[c + 1] - start[c];
+            dominant[0][c] = -1;
+            if (counts[0][c] == 0) continue;
+            parts.clear();
+            for (int i = start[c]; i < start[c + 1]; i++) parts.add(graph.getColor(order[i]));
+            dominant[0][c] = mostFrequent(parts, colorCounts, minColor);
+        }
+
+        //wyzsze poziomy: przewaza partycja najliczniejszej z czterech komorek
+        for (int l = 1; l < levels; l++) {
+            int pw = cellsX[l - 1], ph = cellsY[l - 1];
+            cellsX[l] = (pw + 1) / 2;
+            cellsY[l] = (ph + 1) / 2;
+            counts[l] = new int[cellsX[l] * cellsY[l]];
+            dominant[l] = new int[cellsX[l] * cellsY[l]];
+            for (int py = 0; py < cellsY[l]; py++) {
+                for (int px = 0; px < cellsX[l]; px++) {
+                    int parent = py * cellsX[l] + px;
+                    int bestCount = 0;
+                    dominant[l][parent] = -1;
+                    for (int y = 2 * py; y < Math.min(ph, 2 * py + 2); y++) {
+                        for (int x = 2 * px; x < Math.min(pw, 2 * px + 2); x++) {
+                            int count = counts[l - 1][y * pw + x];
+                            counts[l][parent] += count;
+                            if (count > bestCount) {
+                                bestCount = count;
+                                dominant[l][parent] = dominant[l - 1][y * pw + x];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private int baseCell(Graph graph, int v, int w) {
+        return ((graph.getY(v) - minY) / baseCellSize) * w + (graph.getX(v) - minX) / baseCellSize;
+    }
+
+    // najczestsza wartosc w liniowym czasie; przy remisie ta, ktora wystepuje pierwsza
+    // colorCounts - wyzerowane liczniki indeksowane (wartosc - minColor), po uzyciu znow zerowane
+    private static int mostFrequent(IntList values, int[] colorCounts, int minColor) {
+        if (colorCounts == null) return mostFrequentSorted(values);
+        int bestCount = 0;
+        for (int i = 0; i < values.size(); i++) {
+            bestCount = Math.max(bestCount, ++colorCounts[values.get(i) - minColor]);
+        }
+        int best = values.get(0);
+        for (int i = 0; i < values.size(); i++) {
+            if (colorCounts[values.get(i) - minColor] == bestCount) {
+                best = values.get(i);
+                break;
+            }
+        }
+        for (int i = 0; i < values.size(); i++) colorCounts[values.get(i) - minColor] = 0;
+        return best;
+    }
+
+    // wariant przez sortowanie; przy remisie najmniejsza wartosc
+    private static int mostFrequentSorted(IntList values) {
+        int[] sorted = values.toArray();
+        Arrays.sort(sorted);
+        int best = sorted[0];
+        int bestCount = 0;
+        int i = 0;
+        while (i < sorted.length) {
+            int j = i + 1;
+            while (j < sorted.length && sorted[j] == sorted[i]) j++;
+            if (j - i > bestCount) {
+                bestCount = j - i;
+                best = sorted[i];
+            }
+            i = j;
+        }
+        return best;
+    }
+
+    public int getLevelCount() {
+        return counts.length;
+    }
+
+    public int cellSize(int level) {
+        return baseCellSize << level;
+    }
+
+    // najdrobniejszy poziom, na ktorym komorka ma co najmniej minCellUnits jednostek grafu
+    public int levelFor(double minCellUnits) {
+        int level = 0;
+        while (level < counts.length - 1 && cellSize(level) < minCellUnits) level++;
+        return level;
+    }
+
+    // numer kolumny komorki zawierajacej wspolrzedna x (moze wyjsc poza zakres)
+    public int cellX(int level, double x) {
+        return (int) Math.floor((x - minX) / cellSize(level));
+    }
+
+    public int cellY(int level, double y) {
+        return (int) Math.floor((y - minY) / cellSize(level));
+    }
+
+    // lewy gorny rog komorki w jednostkach grafu
+    public int originX(int level, int cx) {
+        return minX + cx * cellSize(level);
+    }
+
+    public int originY(int level, int cy) {
+        return minY + cy * cellSize(level);
+    }
+
+    public int getCellsX(int level) {
+        return cellsX[level];
+    }
+
+    public int getCellsY(int level) {
+        return cellsY[level];
+    }
+
+    public int getCount(int level, int cx, int cy) {
+        return counts[level][cy * cellsX[level] + cx];
+    }
+
+    // -1 dla pustej komorki
+    public int getDominant(int level, int cx, int cy) {
+        return dominant[level][cy * cellsX[level] + cx];
+    }
+}
@@ -0,0 +1,193 @@
+// k-drozne poprawianie podzialu metoda Fiduccii-Mattheysesa
+// kazdy przebieg przesuwa wierzcholki brzegowe w kolejnosci najwiekszego zysku,
+// a na koncu cofa ruchy wykonane po najlepszym momencie przebiegu
+public class FMRefiner {
+    // przebieg konczy sie po tylu ruchach z rzedu bez poprawy
+    private static final int MIN_FRUITLESS_MOVES = 50;
+
+    private final Graph graph;
+    private final int[] partition;
+    private final long maxPartWeight;
+    private final long[] partWeights;
+
+    // najlepszy ruch dla wierzcholka brzegowego
+    private final int[] moveTarget;
+    private final int[] moveGain;
+    private final boolean[] locked;
+
+    // zbior wierzcholkow brzegowych aktualizowany przyrostowo
+    private final IntList boundary;
+    private final int[] boundaryIndex;
+
+    // pomocnicze tablice do zliczania polaczen z partycjami
+    private final int[] connection;
+    private final int[] touched;
+
+    private final GainBuckets buckets;
+
+    public FMRefiner(Graph graph, int[] partition, int parts, long maxPartWeight) {
+        this.graph = graph;
+        this.partition = partition;
+        this.maxPartWeight = maxPartWeight;
+        int n = graph.getVertexCount();
+
+        partWeights = new long[parts];
+        for (int v = 0; v < n; v++) {
+            partWeights[partition[v]] += graph.getVertexWeight(v);
+        }
+
+        moveTarget = new int[n];
+        moveGain = new int[n];
+        locked = new boolean[n];
+        connection = new int[parts];
+        touched = new int[parts];
+        boundary = new IntList();
+        boundaryIndex = new int[n];
+
+        int maxGain = 1;
+        for (int v = 0; v < n; v++) {
+            boundaryIndex[v] = -1;
+            int degree = 0;
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                degree += graph.edgeWeightAt(e);
+            }
+            maxGain = Math.max(maxGain, degree);
+            if (computeMove(v)) addBoundary(v);
+        }
+        buckets = new GainBuckets(n, maxGain);
+    }
+
+    // zwraca laczne zmniejszenie wagi przecietych krawedzi
+    public long refine(int maxPasses) {
+        long total = 0;
+        for (int pass = 0; pass < maxPasses; pass++) {
+            long improvement = runPass();
+            if (improvement <= 0) break;
+            total += improvement;
+        }
+        return total;
+    }
+
+    private long runPass() {
+        for (int i = 0; i < boundary.size(); i++) {
+            int v = boundary.get(i);
+            buckets.insert(v, moveGain[v]);
+        }
+
+        IntList moved = new IntList();
+        IntList movedFrom = new IntList();
+        long gainSum = 0;
+        long bestGain = 0;
+        int bestPrefix = 0;
+        int fruitless = Math.max(MIN_FRUITLESS_MOVES, boundary.size() / 100);
+
+        while (!buckets.isEmpty() && moved.size() - bestPrefix < fruitless) {
+            int v = buckets.peekMax();
+            buckets.remove(v);
+            int from = partition[v];
+            int to = moveTarget[v];
+            int weight = graph.getVertexWeight(v);
+            //ruch niedozwolony przez ograniczenie rozmiaru partycji
+            if (partWeights[to] + weight > maxPartWeight) continue;
+
+            locked[v] = true;
+            gainSum += moveGain[v];
+            moveVertex(v, from, to, true);
+            moved.add(v);
+            movedFrom.add(from);
+
+            if (gainSum > bestGain) {
+                bestGain = gainSum;
+                bestPrefix = moved.size();
+            }
+        }
+        buckets.clear();
+
+        //cofniecie ruchow po najlepszym punkcie przebiegu
+        for (int i = moved.size() - 1; i >= bestPrefix; i--) {
+            int v = moved.get(i);
+            moveVertex(v, partition[v], movedFrom.get(i), false);
+        }
+        for (int i = 0; i < moved.size(); i++) {
+            locked[moved.get(i)] = false;
+        }
+        return bestGain;
+    }
+
+    private void moveVertex(int v, int from, int to, boolean updateBuckets) {
+        int weight = graph.getVertexWeight(v);
+        partition[v] = to;
+        partWeights[from] -= weight;
+        partWeights[to] += weight;
+
+        refreshBoundary(v);
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            int u = graph.neighborAt(e);
+            refreshBoundary(u);
+            if (!updateBuckets || locked[u]) continue;
+            if (boundaryIndex[u] != -1) {
+                buckets.update(u, moveGain[u]);
+            } else {
+                buckets.remove(u);
+            }
+        }
+    }
+
+    private void refreshBoundary(int v) {
+        if (computeMove(v)) {
+            addBoundary(v);
+        } else {
+            removeBoundary(v);
+        }
+    }
+
+    // liczy najlepsza docelowa partycje i zysk; false gdy v nie ma sasiadow w innych partycjach
+    private boolean computeMove(int v) {
+        int own = partition[v];
+        int internal = 0;
+        int touchedCount = 0;
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            int p = partition[graph.neighborAt(e)];
+            int w = graph.edgeWeightAt(e);
+            if (p == own) {
+                internal += w;
+            } else {
+                if (connection[p] == 0) touched[touchedCount++] = p;
+                connection[p] += w;
+            }
+        }
+        if (touchedCount == 0) return false;
+
+        int best = touched[0];
+        for (int i = 0; i < touchedCount; i++) {
+            int p = touched[i];
+            //przy rownym polaczeniu wybierana jest lzejsza partycja
+            if (connection[p] > connection[best]
+                    || (connection[p] == connection[best] && partWeights[p] < partWeights[best])) {
+                best = p;
+            }
+        }
+        moveTarget[v] = best;
+        moveGain[v] = connection[best] - internal;
+        for (int i = 0; i < touchedCount; i++) {
+            connection[touched[i]] = 0;
+        }
+        return true;
+    }
+
+    private void addBoundary(int v) {
+        if (boundaryIndex[v] != -1) return;
+        boundaryIndex[v] = boundary.size();
+        boundary.add(v);
+    }
+
+    private void removeBoundary(int v) {
+        int index = boundaryIndex[v];
+        if (index == -1) return;
+        int last = boundary.get(boundary.size() - 1);
+        boundary.set(index, last);
+        boundaryIndex[last] = index;
+        boundary.removeLast();
+        boundaryIndex[v] = -1;
+    }
+}
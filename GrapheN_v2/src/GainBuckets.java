@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+// kubelkowa kolejka wierzcholkow wg zysku (FM): wstawianie, usuwanie i wybor maksimum w O(1)
+// kubelki to dwukierunkowe listy na tablicach int, zysk przycinany do [-maxGain, maxGain]
+public class GainBuckets {
+    private final int maxGain;
+    private final int[] heads;
+    private final int[] next;
+    private final int[] prev;
+    private final int[] bucketOf;
+    private int top = -1;
+    private int size;
+
+    public GainBuckets(int vertexCount, int maxGain) {
+        this.maxGain = maxGain;
+        this.heads = new int[2 * maxGain + 1];
+        this.next = new int[vertexCount];
+        this.prev = new int[vertexCount];
+        this.bucketOf = new int[vertexCount];
+        Arrays.fill(heads, -1);
+        Arrays.fill(bucketOf, -1);
+    }
+
+    private int bucket(int gain) {
+        return Math.max(-maxGain, Math.min(maxGain, gain)) + maxGain;
+    }
+
+    public boolean contains(int v) {
+        return bucketOf[v] != -1;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void insert(int v, int gain) {
+        int b = bucket(gain);
+        bucketOf[v] = b;
+        prev[v] = -1;
+        next[v] = heads[b];
+        if (heads[b] != -1) prev[heads[b]] = v;
+        heads[b] = v;
+        if (b > top) top = b;
+        size++;
+    }
+
+    public void remove(int v) {
+        int b = bucketOf[v];
+        if (b == -1) return;
+        if (prev[v] != -1) next[prev[v]] = next[v];
+        else heads[b] = next[v];
+        if (next[v] != -1) prev[next[v]] = prev[v];
+        bucketOf[v] = -1;
+        size--;
+    }
+
+    public void update(int v, int gain) {
+        remove(v);
+        insert(v, gain);
+    }
+
+    // wierzcholek o najwiekszym zysku albo -1 gdy kolejka jest pusta
+    public int peekMax() {
+        if (size == 0) return -1;
+        while (heads[top] == -1) top--;
+        return heads[top];
+    }
+
+    public void clear() {
+        while (size > 0) {
+            remove(peekMax());
+        }
+        top = -1;
+    }
+}
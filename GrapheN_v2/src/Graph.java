@@ -1,227 +1,625 @@
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.regex.*;
 
+// niezmienny graf w formacie CSR: sasiedzi wierzcholka v to adjacency[offsets[v] .. offsets[v+1])
 public class Graph {
-    private Map<Integer, Vertices> graph;
+    // naglowek wersjonowanego formatu .bin ("GRPN" w little-endian)
+    static final int BIN_MAGIC = 0x4E505247;
+    static final int BIN_VERSION_SPARSE = 2;
+    // fragment pliku tekstowego parsowany przez jedno zadanie: okolo TEXT_CHUNKS_PER_THREAD fragmentow na watek
+    // wspolnej puli, ale nie mniej niz MIN_TEXT_CHUNK_BYTES i nie wiecej niz MAX_TEXT_CHUNK_BYTES
+    private static final int TEXT_CHUNKS_PER_THREAD = 4;
+    private static final long MIN_TEXT_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_TEXT_CHUNK_BYTES = 32L << 20;
+
+    private final int[] offsets;
+    private final int[] adjacency;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] colors;
+    // wagi uzywane przez grafy zredukowane w GraphPartitioner, null = wszystkie wagi rowne 1
+    private final int[] vertexWeights;
+    private final int[] edgeWeights;
+    private final long totalVertexWeight;
+
+    Graph(int[] offsets, int[] adjacency, int[] xs, int[] ys, int[] colors){
+        this(offsets, adjacency, xs, ys, colors, null, null);
+    }
 
-    public Graph(){
-        this.graph = new HashMap<>();
+    Graph(int[] offsets, int[] adjacency, int[] xs, int[] ys, int[] colors, int[] vertexWeights, int[] edgeWeights){
+        this.offsets = offsets;
+        this.adjacency = adjacency;
+        this.xs = xs;
+        this.ys = ys;
+        this.colors = colors;
+        this.vertexWeights = vertexWeights;
+        this.edgeWeights = edgeWeights;
+        long total = xs.length;
+        if (vertexWeights != null) {
+            total = 0;
+            for (int w : vertexWeights) total += w;
+        }
+        this.totalVertexWeight = total;
     }
 
     // Metody pomocnicze potrzebne dla algorytmu podziału
     public int getVertexCount() {
-        return graph.size();
+        return xs.length;
     }
 
-    public Set<Integer> getVertices() {
-        return graph.keySet();
+    public int getEdgeCount() {
+        return adjacency.length;
     }
 
-    public List<Vertices> getNeighbors(int vertexId) {
-        Vertices vertex = graph.get(vertexId);
-        if (vertex != null) {
-            return vertex.getNeighbors();
-        }
-        return Collections.emptyList();
+    public int getX(int v) {
+        return xs[v];
     }
 
-    public void addVertex(int id, Vertices vertex) {
-        if (!graph.containsKey(id)) {
-            graph.put(id, vertex);
-        }
+    public int getY(int v) {
+        return ys[v];
+    }
+
+    public int getColor(int v) {
+        return colors[v];
+    }
+
+    // iteracja po sasiadach bez alokacji:
+    // for (int i = g.neighborStart(v); i < g.neighborEnd(v); i++) { int u = g.neighborAt(i); ... }
+    public int neighborStart(int v) {
+        return offsets[v];
+    }
+
+    public int neighborEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    public int neighborAt(int index) {
+        return adjacency[index];
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int getVertexWeight(int v) {
+        return vertexWeights == null ? 1 : vertexWeights[v];
+    }
+
+    // waga krawedzi o indeksie z przedzialu neighborStart..neighborEnd
+    public int edgeWeightAt(int index) {
+        return edgeWeights == null ? 1 : edgeWeights[index];
+    }
+
+    public long getTotalVertexWeight() {
+        return totalVertexWeight;
     }
 
-    public void addEdge(int id1, int id2) {
-        Vertices w1 = graph.get(id1);
-        Vertices w2 = graph.get(id2);
-        if (w1 != null && w2 != null) {
-            w1.addNeighbor(w2);
+    // zapis w formacie GraphSnapshot - ponowne otwarcie nie wymaga parsowania
+    public void saveSnapshot(String filePath) throws IOException {
+        saveSnapshot(filePath, colors);
+    }
+
+    // zrzut z innymi kolorami wierzcholkow (np. numerami partycji), bez kopiowania reszty grafu
+    void saveSnapshot(String filePath, int[] vertexColors) throws IOException {
+        if (vertexColors.length != xs.length) {
+            throw new IllegalArgumentException("Liczba kolorow (" + vertexColors.length + ") rozna od liczby wierzcholkow (" + xs.length + ")");
         }
+        GraphSnapshot.write(filePath, offsets, adjacency, xs, ys, vertexColors, vertexWeights, edgeWeights);
+    }
+
+    // z suma kontrolna calych danych; uszkodzony plik konczy sie IOException
+    public static Graph loadSnapshot(String filePath) throws IOException {
+        return GraphSnapshot.read(filePath, true);
+    }
+
+    // verifyData == false - bez CRC32C danych (struktura CSR jest sprawdzana zawsze), np. dla wlasnych
+    // swiezo zapisanych plikow
+    public static Graph loadSnapshot(String filePath, boolean verifyData) throws IOException {
+        return GraphSnapshot.read(filePath, verifyData);
+    }
+
+    public Vertices getVertex(int id) {
+        return new Vertices(this, id);
     }
 
     public static Graph loadCSRRGGraph(String filePath) throws IOException {
-        Graph graph = new Graph();
-        BufferedReader br = new BufferedReader(new FileReader(filePath));
-
-        String maxVertices = br.readLine();
-
-        String[] indexesStr = br.readLine().split(";");
-        int[] indexes = Arrays.stream(indexesStr).mapToInt(Integer::parseInt).toArray();
-        int numOfVertices = indexes.length;
-        String[] rowStartsStr = br.readLine().split(";");
-        int[] rowStarts = Arrays.stream(rowStartsStr).mapToInt(Integer::parseInt).toArray();
-        int numOfRows = rowStarts.length;
-        String[] groupsStr = br.readLine().split(";");
-        int[] groups = Arrays.stream(groupsStr).mapToInt(Integer::parseInt).toArray();
-        String[] groupStartsStr = br.readLine().split(";");
-        int[] groupStarts = Arrays.stream(groupStartsStr).mapToInt(Integer::parseInt).toArray();
-        int numOfGroups = groupStarts.length;
+        IntList indexes = new IntList();
+        IntList rowStarts = new IntList();
+        IntList groups = new IntList();
+        IntList groupStarts = new IntList();
+        //liczby parsowane bezposrednio z bajtow pliku, bez posrednich Stringow
+        try (IntScanner in = new IntScanner(filePath)) {
+            //brak ktorejkolwiek sekcji oznacza uciety plik - lepiej blad niz czesciowy graf
+            if (!in.skipLine()) throw missingSection(filePath, "maksymalna liczba wierzcholkow w wierszu"); // nieuzywana
+            if (!in.readLine(indexes)) throw missingSection(filePath, "indeksy wierzcholkow");
+            if (!in.readLine(rowStarts)) throw missingSection(filePath, "poczatki wierszy");
+            if (!in.readLine(groups)) throw missingSection(filePath, "grupy sasiadow");
+            if (!in.readLine(groupStarts)) throw missingSection(filePath, "poczatki grup");
+        }
+
+        int numOfVertices = indexes.size();
+        int numOfRows = rowStarts.size();
+        int numOfGroups = groupStarts.size();
+        GraphBuilder graph = new GraphBuilder(numOfVertices, groups.size() - numOfGroups);
         int id = 0;
         for(int i = 0; i < numOfRows; i++){
-            int start = rowStarts[i];
-            int end = (i + 1 < numOfRows) ? rowStarts[i+1] : numOfVertices;
+            int start = rowStarts.get(i);
+            int end = (i + 1 < numOfRows) ? rowStarts.get(i + 1) : numOfVertices;
             for(int j = start; j < end; j++){
-                Vertices vertex = new Vertices(id, indexes[id], i, 0);
-                graph.addVertex(id, vertex);
+                graph.addVertex(indexes.get(id), i);
                 id++;
             }
         }
 
         for(int i = 0; i < numOfGroups; i++){
-            int start = groupStarts[i];
-            int end = (i + 1 < numOfGroups) ? groupStarts[i + 1] : groups.length;
+            int start = groupStarts.get(i);
+            int end = (i + 1 < numOfGroups) ? groupStarts.get(i + 1) : groups.size();
             for(int j = start + 1; j < end; j++){
-                graph.addEdge(groups[start], groups[j]);
+                graph.addEdge(groups.get(start), groups.get(j));
             }
         }
-        return graph;
+        return graph.build(ForkJoinPool.commonPool());
+    }
+
+    private static IOException missingSection(String filePath, String section) {
+        return new IOException("Brak sekcji '" + section + "' w pliku " + filePath);
     }
 
     public static Graph loadTXTGraph(String filePath) throws IOException{
-        Graph graph = new Graph();
-        BufferedReader br = new BufferedReader(new FileReader(filePath));
+        try (MappedTextFile file = new MappedTextFile(filePath)) {
+            long pos = file.nextLine(0);
+            String wierzcholki = file.readLine(pos);
+            int liczbaWierzcholkow = 0;
+            Pattern pattern = Pattern.compile("Liczba wierzcholkow: (\\d+)");
+            Matcher matcher = pattern.matcher(wierzcholki == null ? "" : wierzcholki);
+            if (matcher.find()) {
+                liczbaWierzcholkow = Integer.parseInt(matcher.group(1));
+                //parsowanie ilosci wierzcholkow - na tej podstawie zostanie utworzona poczatkowa lista wierzcholkow w formie jak najbardziej kwadratowej
+            }
+            GraphBuilder graph = new GraphBuilder(liczbaWierzcholkow);
+            int rowLength = (int) Math.round(Math.sqrt(liczbaWierzcholkow));
+            for(int i = 0; i < liczbaWierzcholkow; i++){
+                graph.addVertex(i % rowLength, i / rowLength);
+            }
+            pos = file.nextLine(pos);
+            for (int i = 0; i < 3; i++) pos = file.nextLine(pos);
+
+            //reszta pliku (macierz, trzy linie, kolory) dzielona na fragmenty wg linii; numer pierwszej linii
+            //fragmentu wynika ze zliczenia linii we wczesniejszych fragmentach
+            long[] bounds = file.splitLines(pos, file.size(), textChunkBytes(file.size() - pos));
+            int chunks = bounds.length - 1;
+            int[] firstLine = new int[chunks + 1];
+            MappedTextFile.forEachChunk(chunks, c -> firstLine[c + 1] = countLines(file.bytes(bounds[c], bounds[c + 1])));
+            for (int c = 0; c < chunks; c++) firstLine[c + 1] += firstLine[c];
+            if (firstLine[chunks] < liczbaWierzcholkow) {
+                throw new IOException("Macierz sasiedztwa ma " + firstLine[chunks] + " z " + liczbaWierzcholkow + " wierszy");
+            }
 
-        br.readLine();
-        String wierzcholki = br.readLine();
-        int liczbaWierzcholkow = 0;
-        Pattern pattern = Pattern.compile("Liczba wierzcholkow: (\\d+)");
-        Matcher matcher = pattern.matcher(wierzcholki);
-        if (matcher.find()) {
-            liczbaWierzcholkow = Integer.parseInt(matcher.group(1));
-            //parsowanie ilosci wierzcholkow - na tej podstawie zostanie utworzona poczatkowa lista wierzcholkow w formie jak najbardziej kwadratowej
-        }
-        int rowLength = (int) Math.round(Math.sqrt(liczbaWierzcholkow));
-        for(int i = 0; i < liczbaWierzcholkow; i++){
-            Vertices vertex = new Vertices(i, i % rowLength, i / rowLength, 0);
-            graph.addVertex(i, vertex);
+            int n = liczbaWierzcholkow;
+            DenseChunk[] parsed = new DenseChunk[chunks];
+            MappedTextFile.forEachChunk(chunks, c -> parsed[c] = parseDenseChunk(file.bytes(bounds[c], bounds[c + 1]), firstLine[c], n));
+            //scalanie w kolejnosci pliku - przy powtorzonym wierzcholku wygrywa ostatni kolor, jak przy czytaniu po kolei
+            for (DenseChunk chunk : parsed) {
+                for (int i = 0; i < chunk.edges.size(); i += 2) {
+                    graph.addEdge(chunk.edges.get(i), chunk.edges.get(i + 1));
+                }
+                for (int i = 0; i < chunk.colors.size(); i += 2) {
+                    graph.setColor(chunk.colors.get(i), chunk.colors.get(i + 1));
+                }
+            }
+            return graph.build(ForkJoinPool.commonPool());
         }
+    }
 
-        br.readLine();
-        br.readLine();
-        br.readLine();
+    // rozmiar fragmentu dla bytes bajtow tekstu - plik kilkudziesieciu MB tez rozklada sie na wszystkie watki
+    private static long textChunkBytes(long bytes) {
+        long perChunk = bytes / ((long) ForkJoinPool.getCommonPoolParallelism() * TEXT_CHUNKS_PER_THREAD);
+        return Math.min(MAX_TEXT_CHUNK_BYTES, Math.max(MIN_TEXT_CHUNK_BYTES, perChunk));
+    }
 
-        for(int i = 0; i < liczbaWierzcholkow; i++){
-            String line = br.readLine();
-            String cleanLine = line.replace("[", "").replace("]", "").replace(" ", "").replace(".",";");
+    // krawedzie (wiersz, kolumna) i pary (wierzcholek, kolor) z jednego fragmentu pliku
+    private static final class DenseChunk {
+        final IntList edges = new IntList();
+        final IntList colors = new IntList();
+    }
 
-            String[] elements = cleanLine.split(";");
+    // liczba linii zaczynajacych sie we fragmencie (ostatnia moze nie miec '\n')
+    private static int countLines(ByteBuffer bytes) {
+        int limit = bytes.limit();
+        int lines = 0;
+        for (int i = 0; i < limit; i++) {
+            if (bytes.get(i) == '\n') lines++;
+        }
+        if (limit > 0 && bytes.get(limit - 1) != '\n') lines++;
+        return lines;
+    }
 
-            for(int j = 0; j < liczbaWierzcholkow; j++){
-                if(elements[j].equals("1")) {
-                    graph.addEdge(i, j);
-                }
+    // linie 0..n-1 to wiersze macierzy, potem trzy pomijane linie i n linii "wierzcholek - kolor"
+    private static DenseChunk parseDenseChunk(ByteBuffer bytes, int firstLine, int n) {
+        DenseChunk chunk = new DenseChunk();
+        int limit = bytes.limit();
+        long line = firstLine;
+        int i = 0;
+        while (i < limit && line < 2L * n + 3) {
+            if (line < n) {
+                i = parseMatrixRow(bytes, i, limit, (int) line, n, chunk.edges);
+            } else if (line >= n + 3L) {
+                i = parseColorLine(bytes, i, limit, chunk.colors);
+            } else {
+                i = skipLine(bytes, i, limit);
             }
+            line++;
         }
+        return chunk;
+    }
 
-        br.readLine();
-        br.readLine();
-        br.readLine();
-        for(int i = 0; i < liczbaWierzcholkow; i++){
-            String[] pair = br.readLine().split(" - ");
-            int[] intPair = Arrays.stream(pair).mapToInt(Integer::parseInt).toArray();
+    // pola wiersza rozdziela '.' lub ';' (np. "[0. 1. 0.]"), spacje i nawiasy sa pomijane;
+    // zapisywane sa tylko kolumny pol "1"; zwraca pozycje za koncem linii
+    private static int parseMatrixRow(ByteBuffer bytes, int i, int limit, int row, int n, IntList edges) {
+        int col = 0;
+        int tokenLength = 0;
+        byte token = 0;
+        for (; i < limit; i++) {
+            byte b = bytes.get(i);
+            if (b == '\n') {
+                i++;
+                break;
+            }
+            if (b == '.' || b == ';') {
+                if (tokenLength == 1 && token == '1' && col < n) {
+                    edges.add(row);
+                    edges.add(col);
+                }
+                col++;
+                tokenLength = 0;
+            } else if (b != '[' && b != ']' && b != ' ' && b != '\r') {
+                token = b;
+                tokenLength++;
+            }
+        }
+        //ostatnie pole bez separatora na koncu
+        if (tokenLength == 1 && token == '1' && col < n) {
+            edges.add(row);
+            edges.add(col);
+        }
+        return i;
+    }
 
-            Vertices w = graph.graph.get(intPair[0]);
-            w.setColor(intPair[1]);
+    // dwie liczby z linii "wierzcholek - kolor" (kolor moze byc ujemny); zwraca pozycje za koncem linii
+    private static int parseColorLine(ByteBuffer bytes, int i, int limit, IntList colors) {
+        int vertex = 0;
+        int count = 0;
+        int value = 0;
+        boolean inNumber = false;
+        boolean negative = false;
+        for (; i <= limit; i++) {
+            int b = i < limit ? bytes.get(i) : '\n';
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                inNumber = true;
+                continue;
+            }
+            if (inNumber) {
+                if (count == 0) {
+                    vertex = negative ? -value : value;
+                } else if (count == 1) {
+                    colors.add(vertex);
+                    colors.add(negative ? -value : value);
+                }
+                count++;
+                value = 0;
+                inNumber = false;
+            }
+            negative = b == '-';
+            if (b == '\n') break;
         }
+        return Math.min(i + 1, limit);
+    }
 
-        return graph;
+    private static int skipLine(ByteBuffer bytes, int i, int limit) {
+        while (i < limit && bytes.get(i) != '\n') i++;
+        return Math.min(i + 1, limit);
     }
 
     public static Graph loadCGraphTXT(String filepath) throws IOException{
-        Graph graph = new Graph();
-        BufferedReader br = new BufferedReader(new FileReader(filepath));
+        try (MappedTextFile file = new MappedTextFile(filepath)) {
+            //pierwsze przejscie: sekcja macierzy (wiersze "[...]" i puste linie) konczy sie na pierwszej innej linii
+            long pos = 0;
+            int color = 0;
+            while (pos < file.size()) {
+                int first = file.firstNonBlank(pos);
+                if (first < 0) {
+                    color++;
+                } else if (first != '[') {
+                    break;
+                }
+                pos = file.nextLine(pos);
+            }
+            long edgesStart = pos;
+
+            GraphBuilder graph = new GraphBuilder();
+            if (edgesStart > 0) parseMatrixSection(file.bytes(0, edgesStart), graph);
+            int n = graph.getVertexCount();
+
+            //lista krawedzi parsowana fragmentami; kazda pusta linia to kolejny kolor, wiec kolor pierwszej
+            //krawedzi fragmentu to liczba pustych linii przed nim
+            long[] bounds = file.splitLines(edgesStart, file.size(), textChunkBytes(file.size() - edgesStart));
+            int chunks = bounds.length - 1;
+            EdgeChunk[] parsed = new EdgeChunk[chunks];
+            MappedTextFile.forEachChunk(chunks, c -> parsed[c] = parseEdgeChunk(file.bytes(bounds[c], bounds[c + 1])));
+            int[] firstEdge = new int[chunks];
+            int[] firstColor = new int[chunks];
+            long edges = 0;
+            for (int c = 0; c < chunks; c++) {
+                if (edges > Integer.MAX_VALUE) throw new IOException("Za duzo krawedzi w pliku");
+                firstEdge[c] = (int) edges;
+                firstColor[c] = color;
+                edges += parsed[c].edgeCount;
+                color += parsed[c].blankLines.size();
+                graph.addEdges(parsed[c].edges, parsed[c].edgeCount);
+            }
+
+            //kolor wierzcholka ustala jego ostatnie wystapienie w pliku: (numer krawedzi + 1, kolor)
+            //spakowane w long i wybierane maksimum, wiec kolejnosc watkow nie ma znaczenia
+            AtomicLongArray lastColor = new AtomicLongArray(n);
+            MappedTextFile.forEachChunk(chunks, c -> {
+                EdgeChunk chunk = parsed[c];
+                int blank = 0;
+                for (int i = 0; i < chunk.edgeCount; i++) {
+                    while (blank < chunk.blankLines.size() && chunk.blankLines.get(blank) <= i) blank++;
+                    long stamp = ((long) (firstEdge[c] + i + 1) << 32) | ((firstColor[c] + blank) & 0xFFFFFFFFL);
+                    int from = (int) (chunk.edges[i] >>> 32);
+                    int to = (int) chunk.edges[i];
+                    if (from < n) lastColor.accumulateAndGet(from, stamp, Math::max);
+                    if (to < n) lastColor.accumulateAndGet(to, stamp, Math::max);
+                }
+            });
+            for (int v = 0; v < n; v++) {
+                if (lastColor.get(v) != 0) graph.setColor(v, (int) lastColor.get(v));
+            }
+            return graph.build(ForkJoinPool.commonPool());
+        }
+    }
+
+    // wiersze "[1. 0. 1.]": pole o wartosci 1 to wierzcholek (kolumna, numer wiersza)
+    private static void parseMatrixSection(ByteBuffer bytes, GraphBuilder graph) throws IOException {
+        int limit = bytes.limit();
         int row = 0;
-        int id = 0;
-        int color = 0;
-        String line;
-        while ((line = br.readLine()) != null) {
-            line = line.trim();
-            if (line.isEmpty()) {
-                color++;
-                continue;
+        int i = 0;
+        while (i < limit) {
+            int col = 0;
+            int value = 0;
+            boolean digits = false;
+            boolean negative = false;
+            boolean matrixRow = false;
+            for (; i <= limit; i++) {
+                int b = i < limit ? bytes.get(i) : '\n';
+                if (b == '[') {
+                    matrixRow = true;
+                } else if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    digits = true;
+                } else if (b == '-') {
+                    negative = true;
+                } else if (b == '.' || b == '\n') {
+                    if (digits && !negative && value == 1) graph.addVertex(col, row);
+                    col++;
+                    value = 0;
+                    digits = false;
+                    negative = false;
+                    if (b == '\n') break;
+                } else if (b > ' ' && b != ']') {
+                    throw new IOException("Niepoprawny wiersz macierzy " + row);
+                }
             }
+            i++;
+            if (matrixRow) row++;
+        }
+    }
 
+    // krawedzie (from << 32) | to z jednego fragmentu listy krawedzi oraz pozycje pustych linii
+    // (blankLines.get(j) = liczba krawedzi przed j-ta pusta linia fragmentu)
+    private static final class EdgeChunk {
+        long[] edges = new long[1024];
+        int edgeCount;
+        final IntList blankLines = new IntList();
 
-            // Sprawdzamy czy to linia z macierzą (zawiera "[")
-            if (line.startsWith("[")) {
-                line = line.replaceAll("[\\[\\]]", "").trim();
-                String[] parts = line.split("\\s*\\.\\s*");
+        void add(int from, int to) {
+            if (edgeCount == edges.length) edges = Arrays.copyOf(edges, edges.length * 2);
+            edges[edgeCount++] = ((long) from << 32) | to;
+        }
+    }
 
-                for (int col = 0; col < parts.length; col++) {
-                    int value = Integer.parseInt(parts[col]);
-                    if (value == 1) {
-                        // Traktujemy '1' jako wierzchołek na pozycji (row, col)
-                        graph.addVertex(id, new Vertices(id, col, row, 0));
-                        id++;
+    // linia "from - to" jak w dawnym split("\\s*-\\s*"): czesci rozdzielone '-', koncowe puste czesci
+    // pomijane, a linia brana tylko gdy zostaja dokladnie dwie - dlatego "v - -1" nie daje krawedzi ani koloru
+    private static EdgeChunk parseEdgeChunk(ByteBuffer bytes) throws IOException {
+        EdgeChunk chunk = new EdgeChunk();
+        int limit = bytes.limit();
+        int i = 0;
+        while (i < limit) {
+            int parts = 0;
+            int nonEmptyParts = 0;
+            int from = 0, to = 0;
+            boolean fromValid = false, toValid = false;
+            int value = 0;
+            boolean digits = false;
+            boolean ended = false;
+            boolean invalid = false;
+            for (; i <= limit; i++) {
+                int b = i < limit ? bytes.get(i) & 0xFF : '\n';
+                if (b == '-' || b == '\n') {
+                    //koniec czesci
+                    if (digits || invalid) {
+                        if (parts == 0) {
+                            from = value;
+                            fromValid = !invalid;
+                        } else if (parts == 1) {
+                            to = value;
+                            toValid = !invalid;
+                        }
+                        nonEmptyParts = parts + 1;
                     }
+                    parts++;
+                    value = 0;
+                    digits = false;
+                    ended = false;
+                    invalid = false;
+                    if (b == '\n') break;
+                } else if (b >= '0' && b <= '9' && !ended && value <= (Integer.MAX_VALUE - (b - '0')) / 10) {
+                    value = value * 10 + (b - '0');
+                    digits = true;
+                } else if (b <= ' ') {
+                    if (digits) ended = true;
+                } else if (b == '[' && parts == 0 && !digits && !invalid) {
+                    throw new IOException("Wiersz macierzy po liscie polaczen");
+                } else {
+                    invalid = true;
+                }
+            }
+            i++;
+
+            if (nonEmptyParts == 0 && parts == 1) {
+                chunk.blankLines.add(chunk.edgeCount);
+            } else if (nonEmptyParts == 2) {
+                if (!fromValid || !toValid) throw new IOException("Niepoprawna krawedz na liscie polaczen");
+                chunk.add(from, to);
+            }
+        }
+        return chunk;
+    }
+
+    public static Graph loadCGraphBIN(String filepath) throws IOException{
+        GraphBuilder graph = new GraphBuilder();
+        try (MappedIntReader in = new MappedIntReader(filepath)) {
+            int color = 0;
+
+            //nowsze pliki zaczynaja sie od naglowka z wersja, starsze od razu od szerokosci macierzy
+            int first = in.readInt();
+            if (first == BIN_MAGIC) {
+                int version = in.readInt();
+                if (version != BIN_VERSION_SPARSE) {
+                    throw new IOException("Nieobslugiwana wersja pliku .bin: " + version);
                 }
-                row++;
+                readSparseOccupancy(in, graph);
             } else {
-                // 2. Parsowanie list połączeń
-                String[] connection = line.split("\\s*-\\s*");
-                if (connection.length == 2) {
-                    int from = Integer.parseInt(connection[0]);
-                    int to = Integer.parseInt(connection[1]);
-                    if (to != -1) {  // Ignorujemy połączenia z "-1"
-                        graph.addEdge(from, to);
-                        Vertices w = graph.graph.get(to);
-                        w.setColor(color);
+                readDenseOccupancy(in, first, graph);
+            }
+            int numOfSubgraphs = in.readInt();
+
+            //pary wierzcholkow wczytywane paczkami
+            int[] pairs = new int[2 * 8192];
+            for(int i = 0; i < numOfSubgraphs; i++){
+                int numOfPairs = in.readInt();
+                while (numOfPairs > 0) {
+                    int chunk = Math.min(numOfPairs, pairs.length / 2);
+                    in.read(pairs, 0, 2 * chunk);
+                    for(int j = 0; j < 2 * chunk; j += 2){
+                        int v1 = pairs[j];
+                        int v2 = pairs[j + 1];
+                        if (v2 != -1) {
+                            graph.addEdge(v1, v2);
+                            graph.setColor(v2, color);
+                        }
+                        graph.setColor(v1, color);
                     }
-                    Vertices w1 = graph.graph.get(from);
-                    w1.setColor(color);
+                    numOfPairs -= chunk;
                 }
+                color++;
             }
         }
-        return graph;
+        return graph.build(ForkJoinPool.commonPool());
     }
 
-    public static Graph loadCGraphBIN(String filepath) throws IOException{
-        Graph graph = new Graph();
-        DataInputStream dis = new DataInputStream(new FileInputStream(filepath));
-        int id = 0;
-        int color = 0;
-
-        int width, height;
-        width = Integer.reverseBytes(dis.readInt());
-        height = Integer.reverseBytes(dis.readInt());
-
-        int pos;
+    // wersja 1: pelna macierz width x height, 1 = wierzcholek
+    private static void readDenseOccupancy(MappedIntReader in, int width, GraphBuilder graph) throws IOException {
+        int height = in.readInt();
 
+        //macierz wczytywana wierszami
+        int[] row = new int[width];
         for(int i = 0; i < height; i++){
+            in.read(row, 0, width);
             for(int j = 0; j < width; j++){
-                pos = Integer.reverseBytes(dis.readInt());
-                if(pos == 1){
-                    graph.addVertex(id, new Vertices(id, j, i, 0));
-                    id++;
+                if(row[j] == 1){
+                    graph.addVertex(j, i);
                 }
             }
         }
-        int numOfSubgraphs = Integer.reverseBytes(dis.readInt());
+    }
 
-        for(int i = 0; i < numOfSubgraphs; i++){
-            int numOfPairs = Integer.reverseBytes(dis.readInt());
-            for(int j = 0; j < numOfPairs; j++){
-                int v1 = Integer.reverseBytes(dis.readInt());
-                int v2 = Integer.reverseBytes(dis.readInt());
-                if (v2 != -1) {
-                    graph.addEdge(v1, v2);
-                    Vertices w = graph.graph.get(v2);
-                    w.setColor(color);
+    // wersja 2: szerokosc, wysokosc, liczba wierzcholkow i lista odcinkow (y, x, dlugosc) w kolejnosci wierszy
+    private static void readSparseOccupancy(MappedIntReader in, GraphBuilder graph) throws IOException {
+        in.readInt(); // szerokosc
+        in.readInt(); // wysokosc
+        int vertexCount = in.readInt();
+        int runCount = in.readInt();
+        graph.ensureVertexCapacity(vertexCount);
+
+        int[] runs = new int[3 * 4096];
+        while (runCount > 0) {
+            int chunk = Math.min(runCount, runs.length / 3);
+            in.read(runs, 0, 3 * chunk);
+            for (int r = 0; r < 3 * chunk; r += 3) {
+                int y = runs[r];
+                int x = runs[r + 1];
+                int end = x + runs[r + 2];
+                for (; x < end; x++) {
+                    graph.addVertex(x, y);
                 }
-                Vertices w1 = graph.graph.get(v1);
-                w1.setColor(color);
             }
-            color++;
+            runCount -= chunk;
         }
-        dis.close();
-        return graph;
     }
 
+    // widok zgodny ze stara mapa id -> wierzcholek, obiekty Vertices tworzone sa na zadanie
     public Map<Integer, Vertices> getWierzcholki() {
-        return graph;
-    }
-}
+        return new AbstractMap<Integer, Vertices>() {
+            @Override
+            public int size() {
+                return getVertexCount();
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return key instanceof Integer && (Integer) key >= 0 && (Integer) key < getVertexCount();
+            }
 
+            @Override
+            public Vertices get(Object key) {
+                return containsKey(key) ? getVertex((Integer) key) : null;
+            }
 
+            @Override
+            public Set<Entry<Integer, Vertices>> entrySet() {
+                return new AbstractSet<Entry<Integer, Vertices>>() {
+                    @Override
+                    public int size() {
+                        return getVertexCount();
+                    }
 
+                    @Override
+                    public Iterator<Entry<Integer, Vertices>> iterator() {
+                        return new Iterator<Entry<Integer, Vertices>>() {
+                            private int next = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < getVertexCount();
+                            }
+
+                            @Override
+                            public Entry<Integer, Vertices> next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                int id = next++;
+                                return new AbstractMap.SimpleImmutableEntry<>(id, getVertex(id));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// zbiera wierzcholki i krawedzie, a potem jednorazowo buduje niezmienny graf CSR
+// krawedz trzymana jest jako jeden long (zrodlo << 32 | cel); przy budowie krawedzie sa stabilnie sortowane
+// pozycyjnie wg zrodla, wiec sasiedzi kazdego wierzcholka sa w kolejnosci dodania, a powtorzenia usuwane
+// jednym przejsciem
+public class GraphBuilder {
+    private final IntList xs;
+    private final IntList ys;
+    private final IntList colors;
+    private long[] edges;
+    private int edgeCount;
+    // wagi zbierane tylko gdy ktoras z nich zostala podana jawnie
+    private IntList vertexWeights;
+    private int[] edgeWeights;
+    private boolean built;
+
+    public GraphBuilder() {
+        this(16);
+    }
+
+    public GraphBuilder(int expectedVertices) {
+        this(expectedVertices, 16);
+    }
+
+    public GraphBuilder(int expectedVertices, int expectedEdges) {
+        xs = new IntList(expectedVertices);
+        ys = new IntList(expectedVertices);
+        colors = new IntList(expectedVertices);
+        edges = new long[Math.max(expectedEdges, 1)];
+    }
+
+    public void ensureVertexCapacity(int expectedVertices) {
+        xs.ensureCapacity(expectedVertices);
+        ys.ensureCapacity(expectedVertices);
+        colors.ensureCapacity(expectedVertices);
+    }
+
+    public int getVertexCount() {
+        return xs.size();
+    }
+
+    // zwraca id nowego wierzcholka (kolejne liczby od 0)
+    public int addVertex(int x, int y) {
+        xs.add(x);
+        ys.add(y);
+        colors.add(0);
+        if (vertexWeights != null) vertexWeights.add(1);
+        return xs.size() - 1;
+    }
+
+    public int addVertex(int x, int y, int weight) {
+        if (vertexWeights == null) {
+            vertexWeights = filledList(xs.size(), xs.size() + 16);
+        }
+        int id = addVertex(x, y);
+        vertexWeights.set(id, weight);
+        return id;
+    }
+
+    public void setColor(int id, int color) {
+        if (id < 0 || id >= colors.size()) return;
+        colors.set(id, color);
+    }
+
+    // krawedzie moga byc dodane przed swoimi wierzcholkami; te, ktorych konce nie istnieja
+    // w chwili budowy grafu, sa pomijane
+    public void addEdge(int from, int to) {
+        if (from < 0 || to < 0) return;
+        if (edgeCount == edges.length) growEdges(edgeCount + 1);
+        edges[edgeCount] = ((long) from << 32) | to;
+        if (edgeWeights != null) edgeWeights[edgeCount] = 1;
+        edgeCount++;
+    }
+
+    // krawedzie spakowane jak w addEdge: (from << 32) | to; ujemne konce sa pomijane przy budowie
+    public void addEdges(long[] packed, int count) {
+        if (edgeCount + count > edges.length) growEdges(edgeCount + count);
+        System.arraycopy(packed, 0, edges, edgeCount, count);
+        if (edgeWeights != null) Arrays.fill(edgeWeights, edgeCount, edgeCount + count, 1);
+        edgeCount += count;
+    }
+
+    // powtorzone krawedzie wazone sa scalane z sumowaniem wag
+    public void addEdge(int from, int to, int weight) {
+        if (edgeWeights == null) {
+            edgeWeights = new int[edges.length];
+            Arrays.fill(edgeWeights, 0, edgeCount, 1);
+        }
+        int before = edgeCount;
+        addEdge(from, to);
+        if (edgeCount > before) {
+            edgeWeights[before] = weight;
+        }
+    }
+
+    private void growEdges(int minCapacity) {
+        int newCapacity = Math.max(minCapacity, edges.length + (edges.length >> 1) + 1);
+        edges = Arrays.copyOf(edges, newCapacity);
+        if (edgeWeights != null) edgeWeights = Arrays.copyOf(edgeWeights, newCapacity);
+    }
+
+    private static IntList filledList(int size, int capacity) {
+        IntList list = new IntList(capacity);
+        for (int i = 0; i < size; i++) list.add(1);
+        return list;
+    }
+
+    public Graph build() {
+        return build(null);
+    }
+
+    // pool != null - krawedzie sortowane rownolegle; wynik jest taki sam jak bez pool
+    // bufory krawedzi sa sortowane w miejscu, wiec graf mozna zbudowac tylko raz
+    public Graph build(ForkJoinPool pool) {
+        if (built) throw new IllegalStateException("Graf zostal juz zbudowany");
+        built = true;
+        int n = xs.size();
+        long[] keys = edges;
+        int[] weights = edgeWeights;
+
+        //klucz (cel << bits) | zrodlo z pominieciem krawedzi do nieistniejacych wierzcholkow
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, n - 1));
+        int m = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            int from = (int) (keys[i] >>> 32);
+            int to = (int) keys[i];
+            if (from < 0 || to < 0 || from >= n || to >= n) continue;
+            keys[m] = ((long) to << bits) | from;
+            if (weights != null) weights[m] = weights[i];
+            m++;
+        }
+        //sortowanie tylko po zrodle (mlodsze bity) - stabilne, wiec krawedzie jednego zrodla zostaja
+        //w kolejnosci dodania
+        ParallelRadixSort.sort(pool, keys, weights, m, bits);
+
+        //usuwanie powtorzonych krawedzi z zachowaniem pierwszego wystapienia; wagi powtorzen sie sumuja
+        int[] offsets = new int[n + 1];
+        int[] adjacency = new int[m];
+        int[] lastSource = new int[n];
+        Arrays.fill(lastSource, -1);
+        int[] firstSlot = weights == null ? null : new int[n];
+        long mask = (1L << bits) - 1;
+        int write = 0;
+        for (int i = 0; i < m; i++) {
+            int v = (int) (keys[i] & mask);
+            int u = (int) (keys[i] >>> bits);
+            if (lastSource[u] != v) {
+                lastSource[u] = v;
+                offsets[v + 1]++;
+                if (weights != null) {
+                    firstSlot[u] = write;
+                    weights[write] = weights[i];
+                }
+                adjacency[write++] = u;
+            } else if (weights != null) {
+                weights[firstSlot[u]] += weights[i];
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        edges = null;
+        edgeWeights = null;
+
+        if (write < adjacency.length) adjacency = Arrays.copyOf(adjacency, write);
+        if (weights != null && write < weights.length) weights = Arrays.copyOf(weights, write);
+        return new Graph(offsets, adjacency, xs.toArray(), ys.toArray(), colors.toArray(),
+                vertexWeights == null ? null : vertexWeights.toArray(), weights);
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// wspolna dla calego procesu pamiec podreczna wczytanych grafow (Graph jest niezmienny, wiec mozna go dzielic)
+// klucz: kanoniczna sciezka, rozmiar i czas modyfikacji pliku oraz format, ktorym plik czytano
+// usuwanie LRU ponad przyblizony limit pamieci; wpisy trzymane miekkimi referencjami, wiec GC moze je zwolnic
+public final class GraphCache {
+    // domyslnie czwarta czesc sterty
+    private static final GraphCache SHARED = new GraphCache(Runtime.getRuntime().maxMemory() / 4);
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReferenceQueue<Graph> cleared = new ReferenceQueue<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public interface Loader {
+        Graph load(String filePath) throws IOException;
+    }
+
+    // wynik wyszukania: graf i informacja, czy pochodzi z pamieci podrecznej
+    public static final class Lookup {
+        private final Graph graph;
+        private final boolean hit;
+
+        Lookup(Graph graph, boolean hit) {
+            this.graph = graph;
+            this.hit = hit;
+        }
+
+        public Graph getGraph() {
+            return graph;
+        }
+
+        public boolean isHit() {
+            return hit;
+        }
+    }
+
+    private static final class Key {
+        final String path;
+        final long size;
+        final long modified;
+        final String format;
+
+        Key(String path, long size, long modified, String format) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.format = format;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return size == other.size && modified == other.modified && path.equals(other.path) && format.equals(other.format);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((path.hashCode() * 31 + Long.hashCode(size)) * 31 + Long.hashCode(modified)) * 31 + format.hashCode();
+        }
+    }
+
+    private static final class Entry extends SoftReference<Graph> {
+        final Key key;
+        final long bytes;
+
+        Entry(Key key, Graph graph, long bytes, ReferenceQueue<Graph> queue) {
+            super(graph, queue);
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+
+    public GraphCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public static GraphCache shared() {
+        return SHARED;
+    }
+
+    // graf z pamieci podrecznej albo wczytany loaderem; format rozroznia rozne sposoby czytania tego samego pliku
+    public Lookup load(String filePath, String format, Loader loader) throws IOException {
+        File file = new File(filePath).getCanonicalFile();
+        Key key = new Key(file.getPath(), file.length(), file.lastModified(), format);
+        synchronized (this) {
+            purgeCleared();
+            Entry entry = entries.get(key);
+            Graph graph = entry == null ? null : entry.get();
+            if (graph != null) {
+                hits++;
+                return new Lookup(graph, true);
+            }
+            misses++;
+        }
+
+        //wczytywanie poza blokada - inne pliki moga byc w tym czasie obslugiwane
+        Graph graph = loader.load(filePath);
+        put(key, graph);
+        return new Lookup(graph, false);
+    }
+
+    private synchronized void put(Key key, Graph graph) {
+        purgeCleared();
+        //starsze wersje tego samego pliku nie zostana juz trafione
+        Iterator<Entry> stale = entries.values().iterator();
+        while (stale.hasNext()) {
+            Entry entry = stale.next();
+            if (entry.key.path.equals(key.path) && entry.key.format.equals(key.format)) {
+                bytes -= entry.bytes;
+                stale.remove();
+            }
+        }
+
+        long size = estimateBytes(graph);
+        if (size > maxBytes) return;
+        entries.put(key, new Entry(key, graph, size, cleared));
+        bytes += size;
+        //usuwanie najdawniej uzytych grafow ponad limit
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            bytes -= eldest.getValue().bytes;
+            it.remove();
+        }
+    }
+
+    // wpisy zwolnione przez GC znikaja z mapy i z licznika pamieci
+    private void purgeCleared() {
+        Object ref;
+        while ((ref = cleared.poll()) != null) {
+            Entry entry = (Entry) ref;
+            if (entries.get(entry.key) == entry) {
+                entries.remove(entry.key);
+                bytes -= entry.bytes;
+            }
+        }
+    }
+
+    // tablice CSR: offsets, x, y, kolory i wagi wierzcholkow (n) oraz sasiedzi i wagi krawedzi (m)
+    static long estimateBytes(Graph graph) {
+        long n = graph.getVertexCount();
+        long m = graph.getEdgeCount();
+        return 4L * (5 * n + 2 * m) + 256;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized String describe() {
+        purgeCleared();
+        return String.format(Locale.ROOT, "Graph cache: %d hits, %d misses, %d graphs, %.1f MB",
+                hits, misses, entries.size(), bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,195 @@
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// gotowa geometria do rysowania, pogrupowana wg partycji: krawedzie, kolka i kropki wierzcholkow
+// graf dzielony jest na kwadratowe fragmenty; geometria fragmentu budowana jest przy pierwszym
+// rysowaniu i nie zalezy od widocznosci partycji, wiec przelaczenie checkboxa nic nie przebudowuje
+// dlugie krawedzie (z SpatialIndex) sa w osobnych warstwach wspolnych dla calego grafu, pogrupowanych wg
+// polozenia i dlugosci krawedzi; grupa, ktorej prostokat ograniczajacy nie przecina widoku, nie jest rysowana
+// kafelki GraphPanel rysowane sa w kilku watkach - budowa i pobieranie fragmentow sa synchronizowane,
+// a gotowy fragment juz sie nie zmienia
+public class GraphLayers {
+    // bok fragmentu w komorkach indeksu przestrzennego
+    private static final int CHUNK_CELLS = 8;
+    // najwiecej tyle fragmentow trzymanych w pamieci (najdawniej uzyte sa usuwane)
+    private static final int MAX_CHUNKS = 4096;
+
+    private final Graph graph;
+    private final SpatialIndex index;
+    private final double spacing;
+    private final double radius;
+    private final double dotSize;
+    private final int chunkSize;
+    private final Map<Long, Chunk> chunks = new LinkedHashMap<Long, Chunk>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+            return size() > MAX_CHUNKS;
+        }
+    };
+    private List<LongEdgeLayer> longEdges;
+
+    public interface LayerVisitor {
+        // krawedzie miedzy partA i partB (dla wierzcholkow partA == partB)
+        void visit(int partA, int partB, java.awt.Shape shape);
+    }
+
+    private static final class Chunk {
+        final Map<Long, Path2D.Float> edges = new HashMap<>();
+        final Map<Integer, Path2D.Float> circles = new HashMap<>();
+        final Map<Integer, Path2D.Float> dots = new HashMap<>();
+    }
+
+    // dlugie krawedzie jednej pary partycji z jednej grupy; bounds w jednostkach ekranu
+    private static final class LongEdgeLayer {
+        final long pair;
+        final Path2D.Float path = new Path2D.Float();
+        Rectangle2D bounds;
+
+        LongEdgeLayer(long pair) {
+            this.pair = pair;
+        }
+    }
+
+    // spacing, radius i dotSize w jednostkach ekranu przy skali 1
+    public GraphLayers(Graph graph, SpatialIndex index, double spacing, double radius, double dotSize) {
+        this.graph = graph;
+        this.index = index;
+        this.spacing = spacing;
+        this.radius = radius;
+        this.dotSize = dotSize;
+        this.chunkSize = index.getCellSize() * CHUNK_CELLS;
+    }
+
+    private static long pairKey(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | (Math.max(a, b) & 0xFFFFFFFFL);
+    }
+
+    private static int pairFirst(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int pairSecond(long key) {
+        return (int) key;
+    }
+
+    private synchronized Chunk chunk(int cx, int cy) {
+        long key = ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = buildChunk(cx, cy);
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private Chunk buildChunk(int cx, int cy) {
+        Chunk chunk = new Chunk();
+        int x0 = index.getMinX() + cx * chunkSize;
+        int y0 = index.getMinY() + cy * chunkSize;
+        index.query(x0, y0, x0 + chunkSize - 1, y0 + chunkSize - 1, v -> {
+            int x = graph.getX(v), y = graph.getY(v);
+            //zapytanie zwraca cale komorki - tylko wierzcholki z tego fragmentu
+            if (x < x0 || y < y0 || x >= x0 + chunkSize || y >= y0 + chunkSize) return;
+            int part = graph.getColor(v);
+            double sx = x * spacing, sy = y * spacing;
+            chunk.circles.computeIfAbsent(part, p -> new Path2D.Float())
+                    .append(new Ellipse2D.Double(sx - radius, sy - radius, 2 * radius, 2 * radius), false);
+            chunk.dots.computeIfAbsent(part, p -> new Path2D.Float())
+                    .append(new Rectangle2D.Double(sx - dotSize / 2, sy - dotSize / 2, dotSize, dotSize), false);
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                int u = graph.neighborAt(e);
+                if (index.isLongEdge(v, u)) continue;
+                Path2D.Float path = chunk.edges.computeIfAbsent(pairKey(part, graph.getColor(u)), k -> new Path2D.Float());
+                path.moveTo(sx, sy);
+                path.lineTo(graph.getX(u) * spacing, graph.getY(u) * spacing);
+            }
+        });
+        return chunk;
+    }
+
+    private synchronized List<LongEdgeLayer> longEdges() {
+        if (longEdges == null) {
+            Map<Long, Map<Long, LongEdgeLayer>> byGroup = new HashMap<>();
+            for (int i = 0; i < index.getLongEdgeCount(); i++) {
+                int v = index.longEdgeFrom(i);
+                int u = index.longEdgeTo(i);
+                //grupa: najmniejszy poziom L, na ktorym krawedz miesci sie w boku chunkSize * 2^L, i komorka
+                //tego poziomu z lewym gornym rogiem krawedzi - prostokat grupy jest co najwyzej dwa razy wiekszy
+                //(sklejenie dwoch grup przy bardzo rozleglych wspolrzednych tylko powieksza prostokat)
+                long left = (long) Math.min(graph.getX(v), graph.getX(u)) - index.getMinX();
+                long top = (long) Math.min(graph.getY(v), graph.getY(u)) - index.getMinY();
+                long extent = Math.max(Math.abs((long) graph.getX(v) - graph.getX(u)), Math.abs((long) graph.getY(v) - graph.getY(u)));
+                int level = 0;
+                while (((long) chunkSize << level) < extent) level++;
+                long cell = (long) chunkSize << level;
+                long key = ((long) level << 58) | ((left / cell & 0x1FFFFFFFL) << 29) | (top / cell & 0x1FFFFFFFL);
+                long pair = pairKey(graph.getColor(v), graph.getColor(u));
+                LongEdgeLayer layer = byGroup.computeIfAbsent(key, k -> new HashMap<>())
+                        .computeIfAbsent(pair, LongEdgeLayer::new);
+                layer.path.moveTo(graph.getX(v) * spacing, graph.getY(v) * spacing);
+                layer.path.lineTo(graph.getX(u) * spacing, graph.getY(u) * spacing);
+            }
+            List<LongEdgeLayer> layers = new ArrayList<>();
+            for (Map<Long, LongEdgeLayer> groupLayers : byGroup.values()) {
+                for (LongEdgeLayer layer : groupLayers.values()) {
+                    //getBounds2D przechodzi cala sciezke - liczone raz, nie przy kazdym rysowaniu
+                    layer.bounds = layer.path.getBounds2D();
+                    layers.add(layer);
+                }
+            }
+            longEdges = layers;
+        }
+        return longEdges;
+    }
+
+    // warstwy krawedzi dla obszaru (w jednostkach grafu); obszar jest powiekszany o bok komorki,
+    // bo krotka krawedz moze wychodzic poza swoj fragment
+    public void forEachEdgeLayer(double x0, double y0, double x1, double y1, LayerVisitor visitor) {
+        int reach = index.getCellSize();
+        forEachChunk(x0 - reach, y0 - reach, x1 + reach, y1 + reach, chunk -> {
+            for (Map.Entry<Long, Path2D.Float> entry : chunk.edges.entrySet()) {
+                visitor.visit(pairFirst(entry.getKey()), pairSecond(entry.getKey()), entry.getValue());
+            }
+        });
+        double sx0 = x0 * spacing, sy0 = y0 * spacing, sx1 = x1 * spacing, sy1 = y1 * spacing;
+        for (LongEdgeLayer layer : longEdges()) {
+            Rectangle2D b = layer.bounds;
+            //prostokat ograniczajacy domkniety - pozioma lub pionowa krawedz ma zerowa szerokosc albo wysokosc
+            if (b.getMaxX() < sx0 || b.getMaxY() < sy0 || b.getMinX() > sx1 || b.getMinY() > sy1) continue;
+            visitor.visit(pairFirst(layer.pair), pairSecond(layer.pair), layer.path);
+        }
+    }
+
+    // kolka wierzcholkow (tryb pelny) albo kwadratowe kropki
+    public void forEachVertexLayer(double x0, double y0, double x1, double y1, boolean dots, LayerVisitor visitor) {
+        double margin = Math.max(radius, dotSize) / spacing;
+        forEachChunk(x0 - margin, y0 - margin, x1 + margin, y1 + margin, chunk -> {
+            for (Map.Entry<Integer, Path2D.Float> entry : (dots ? chunk.dots : chunk.circles).entrySet()) {
+                visitor.visit(entry.getKey(), entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    private interface ChunkVisitor {
+        void visit(Chunk chunk);
+    }
+
+    private void forEachChunk(double x0, double y0, double x1, double y1, ChunkVisitor visitor) {
+        if (x1 < index.getMinX() || y1 < index.getMinY() || x0 > index.getMaxX() || y0 > index.getMaxY()) return;
+        int cx0 = (int) Math.max(0, Math.floor((x0 - index.getMinX()) / chunkSize));
+        int cy0 = (int) Math.max(0, Math.floor((y0 - index.getMinY()) / chunkSize));
+        int cx1 = (int) Math.floor((Math.min(x1, index.getMaxX()) - index.getMinX()) / chunkSize);
+        int cy1 = (int) Math.floor((Math.min(y1, index.getMaxY()) - index.getMinY()) / chunkSize);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                visitor.visit(chunk(cx, cy));
+            }
+        }
+    }
+}
@@ -2,25 +2,84 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GraphPanel extends JPanel {
     private static final int VERTEX_RADIUS = 20;
     private static final int EDGE_THICKNESS = 2;
-    private final Map<Integer, Vertices> wierzcholki;
-    private double scale = 1.0;
+    // odleglosc miedzy sasiednimi polami siatki na ekranie przy skali 1
+    private static final int SPACING = 50;
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 12);
+    // poziomy szczegolow wg odleglosci miedzy sasiednimi wierzcholkami na ekranie (w pikselach):
+    // ponizej DOTS - mapa gestosci, ponizej FULL_DETAIL - kropki bez etykiet, wyzej pelne kolka z numerami
+    private static final double DOTS_MIN_SPACING_PX = 2;
+    private static final double FULL_DETAIL_MIN_SPACING_PX = 24;
+    private static final double DOT_EDGES_MIN_SPACING_PX = 6;
+    private static final int HEATMAP_CELL_PX = 3;
+    private static final int HEATMAP_ALPHA_LEVELS = 8;
+    private static final double MAX_SCALE = 4.0;
+    // przy najmniejszym powiekszeniu caly graf zajmuje tyle pikseli
+    private static final int MIN_VIEW_PX = 100;
+    // kafelki obrazu: bok w pikselach, limit pamieci, liczba watkow renderujacych
+    private static final int TILE_SIZE = 256;
+    private static final long TILE_CACHE_BYTES = 64L << 20;
+    private static final int TILE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    // zastepcze kafelki z poprzedniej skali rysowane sa tylko, gdy jest ich najwyzej tyle
+    private static final int MAX_FALLBACK_TILES = 256;
+    private final Graph graph;
+    // indeks przestrzenny budowany raz - rysowane sa tylko wierzcholki i krawedzie w widoku
+    private final SpatialIndex index;
+    private final DensityPyramid density;
+    // srednia odleglosc miedzy wierzcholkami w jednostkach grafu
+    private final double averageSpacing;
+    private final double minScale;
+    private final Color[][] heatColors;
+    // kafelki sa rysowane w tle; graf panelu sie nie zmienia, wiec kafelki uniewaznia tylko
+    // zmiana widocznosci partycji (zmiana wersji)
+    private final TileCache tiles = new TileCache(TILE_CACHE_BYTES);
+    private final Set<TileCache.Key> pendingTiles = ConcurrentHashMap.newKeySet();
+    private ExecutorService tileExecutor;
+    private volatile int tileVersion;
+    // skala ostatniej w pelni narysowanej klatki - jej kafelki zastepuja brakujace po zmianie skali
+    private double fallbackScale = -1;
+    private volatile double scale = 1.0;
     private double translateX = 0;
     private double translateY = 0;
     private int lastMouseX, lastMouseY;
     private List<JCheckBox> partCheckboxes = new ArrayList<>();
-    private Set<Integer> visibleParts = new HashSet<>();
+    // widocznosc partycji (indeks = numer partycji)
+    private boolean[] visibleParts;
+    // geometria pogrupowana wg partycji - przelaczenie widocznosci tylko pomija warstwy
+    private final GraphLayers layers;
     private Color[] partColors = {Color.BLUE, Color.RED, Color.GREEN, Color.YELLOW,
             Color.PINK, Color.CYAN, Color.ORANGE, Color.MAGENTA};
 
-    public GraphPanel(Map<Integer, Vertices> wierzcholki, MainFrame parent) {
+    public GraphPanel(Graph graph, MainFrame parent) {
         if(parent.getControlPanel() != null) parent.removeControlPanel();
-        this.wierzcholki = wierzcholki;
+        this.graph = graph;
+        this.index = new SpatialIndex(graph);
+        this.density = new DensityPyramid(graph, index.getCellSize());
+        double width = (double) index.getMaxX() - index.getMinX() + 1;
+        double height = (double) index.getMaxY() - index.getMinY() + 1;
+        this.averageSpacing = Math.sqrt(width * height / Math.max(1, graph.getVertexCount()));
+        this.minScale = Math.min(0.5, MIN_VIEW_PX / (Math.max(width, height) * SPACING));
+        //kropki maja staly rozmiar w jednostkach swiata, wiec geometria nie zalezy od skali
+        this.layers = new GraphLayers(graph, index, SPACING, VERTEX_RADIUS,
+                Math.min(2 * VERTEX_RADIUS, 0.6 * averageSpacing * SPACING));
+        this.heatColors = new Color[partColors.length][HEATMAP_ALPHA_LEVELS];
+        for (int c = 0; c < partColors.length; c++) {
+            for (int a = 0; a < HEATMAP_ALPHA_LEVELS; a++) {
+                Color base = partColors[c];
+                heatColors[c][a] = new Color(base.getRed(), base.getGreen(), base.getBlue(),
+                        255 * (a + 1) / HEATMAP_ALPHA_LEVELS);
+            }
+        }
         setBackground(Color.WHITE);
         setLayout(new BorderLayout());
 
@@ -29,25 +88,25 @@ public class GraphPanel extends JPanel {
         controlPanel.setBackground(Color.LIGHT_GRAY);
 
         // Znajdź wszystkie unikalne kolory podgrafów
-        Set<Integer> allParts = new HashSet<>();
-        for (Vertices v : wierzcholki.values()) {
-            allParts.add(v.getColor());
+        Set<Integer> allParts = new TreeSet<>();
+        int maxPart = 0;
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            allParts.add(graph.getColor(v));
+            maxPart = Math.max(maxPart, graph.getColor(v));
         }
+        visibleParts = new boolean[maxPart + 1];
         // Stwórz checkboxy dla każdego podgrafu
         for (int part : allParts) {
             JCheckBox checkBox = new JCheckBox("Podgraf " + (part + 1), true);
             checkBox.setForeground(partColors[part % partColors.length]);
             checkBox.addActionListener(e -> {
-                if (checkBox.isSelected()) {
-                    visibleParts.add(part);
-                } else {
-                    visibleParts.remove(part);
-                }
+                visibleParts[part] = checkBox.isSelected();
+                invalidateTiles();
                 repaint();
             });
             partCheckboxes.add(checkBox);
             controlPanel.add(checkBox);
-            visibleParts.add(part); // Domyślnie wszystkie widoczne
+            visibleParts[part] = true; // Domyślnie wszystkie widoczne
         }
 
 
@@ -55,7 +114,11 @@ public class GraphPanel extends JPanel {
         // Nasłuchiwanie zoomu
         addMouseWheelListener(e -> {
             double zoomFactor = e.getWheelRotation() < 0 ? 1.1 : 0.9;
-            scale = Math.max(0.5, Math.min(1.5, scale * zoomFactor));
+            double newScale = Math.max(minScale, Math.min(MAX_SCALE, scale * zoomFactor));
+            //punkt pod kursorem zostaje na miejscu
+            translateX = e.getX() - (e.getX() - translateX) * newScale / scale;
+            translateY = e.getY() - (e.getY() - translateY) * newScale / scale;
+            scale = newScale;
             repaint();
         });
 
@@ -84,51 +147,272 @@ public class GraphPanel extends JPanel {
         parent.add(controlPanel, BorderLayout.NORTH);
     }
 
+    // widok do narysowania: przesuniecie i skala oraz widoczny obszar w jednostkach grafu
+    // kafelki rysowane sa w innych watkach, wiec widok ma wlasna kopie widocznosci partycji
+    private static final class View {
+        final double translateX;
+        final double translateY;
+        final double scale;
+        final double x0, y0, x1, y1;
+        final boolean[] visibleParts;
+
+        View(double translateX, double translateY, double scale, int width, int height, boolean[] visibleParts) {
+            this.translateX = translateX;
+            this.translateY = translateY;
+            this.scale = scale;
+            this.x0 = -translateX / scale / SPACING;
+            this.y0 = -translateY / scale / SPACING;
+            this.x1 = (width - translateX) / scale / SPACING;
+            this.y1 = (height - translateY) / scale / SPACING;
+            this.visibleParts = visibleParts;
+        }
+
+        double screenX(double x) {
+            return translateX + x * SPACING * scale;
+        }
+
+        double screenY(double y) {
+            return translateY + y * SPACING * scale;
+        }
+
+        boolean isVisible(int part) {
+            return part >= 0 && part < visibleParts.length && visibleParts[part];
+        }
+
+        AffineTransform worldTransform() {
+            AffineTransform transform = new AffineTransform();
+            transform.translate(translateX, translateY);
+            transform.scale(scale, scale);
+            return transform;
+        }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        if (clip.isEmpty()) return;
 
-        AffineTransform transform = new AffineTransform();
-        transform.translate(translateX, translateY);
-        transform.scale(scale, scale);
-        g2d.setTransform(transform);
+        //kafelek (tx, ty) obejmuje piksele [tx * TILE_SIZE, (tx + 1) * TILE_SIZE) obrazu calego grafu w danej skali,
+        //wiec przesuwanie widoku nie zmienia kafelkow - dochodza tylko nowo odsloniete
+        double tileScale = scale;
+        int originX = (int) Math.floor(translateX);
+        int originY = (int) Math.floor(translateY);
+        int tx0 = Math.floorDiv(clip.x - originX, TILE_SIZE);
+        int ty0 = Math.floorDiv(clip.y - originY, TILE_SIZE);
+        int tx1 = Math.floorDiv(clip.x + clip.width - 1 - originX, TILE_SIZE);
+        int ty1 = Math.floorDiv(clip.y + clip.height - 1 - originY, TILE_SIZE);
 
-        // Rysuj tylko widoczne krawędzie
-        g2d.setColor(Color.GRAY);
-        g2d.setStroke(new BasicStroke(EDGE_THICKNESS));
-        for (Vertices w : wierzcholki.values()) {
-            if (!visibleParts.contains(w.getColor())) continue;
-
-            Point p1 = new Point(w.getX() * 50, w.getY() * 50);
-            for (Vertices sasiad : w.getNeighbors()) {
-                if (visibleParts.contains(sasiad.getColor())) {
-                    Point p2 = new Point(sasiad.getX() * 50, sasiad.getY() * 50);
-                    g2d.drawLine(p1.x, p1.y, p2.x, p2.y);
+        BufferedImage[][] visible = new BufferedImage[ty1 - ty0 + 1][tx1 - tx0 + 1];
+        boolean complete = true;
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                TileCache.Key key = new TileCache.Key(tileScale, tx, ty);
+                BufferedImage tile = tiles.get(key);
+                if (tile == null) {
+                    complete = false;
+                    requestTile(key);
                 }
+                visible[ty - ty0][tx - tx0] = tile;
             }
         }
 
-        // Rysuj tylko widoczne wierzchołki
-        for (Vertices w : wierzcholki.values()) {
-            if (!visibleParts.contains(w.getColor())) continue;
+        if (complete) {
+            fallbackScale = tileScale;
+        } else if (fallbackScale > 0 && fallbackScale != tileScale) {
+            paintFallback(g2d, clip, tileScale);
+        }
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                BufferedImage tile = visible[ty - ty0][tx - tx0];
+                if (tile != null) g2d.drawImage(tile, originX + tx * TILE_SIZE, originY + ty * TILE_SIZE, null);
+            }
+        }
+    }
+
+    // do czasu narysowania brakujacych kafelkow widac przeskalowane kafelki z poprzedniej skali
+    private void paintFallback(Graphics2D g2d, Rectangle clip, double tileScale) {
+        double tilePx = TILE_SIZE * tileScale / fallbackScale;
+        int fx0 = (int) Math.floor((clip.x - translateX) / tilePx);
+        int fy0 = (int) Math.floor((clip.y - translateY) / tilePx);
+        int fx1 = (int) Math.floor((clip.x + clip.width - translateX) / tilePx);
+        int fy1 = (int) Math.floor((clip.y + clip.height - translateY) / tilePx);
+        if ((long) (fx1 - fx0 + 1) * (fy1 - fy0 + 1) > MAX_FALLBACK_TILES) return;
+        for (int fy = fy0; fy <= fy1; fy++) {
+            for (int fx = fx0; fx <= fx1; fx++) {
+                BufferedImage tile = tiles.get(new TileCache.Key(fallbackScale, fx, fy));
+                if (tile == null) continue;
+                int sx0 = (int) Math.floor(translateX + fx * tilePx);
+                int sy0 = (int) Math.floor(translateY + fy * tilePx);
+                int sx1 = (int) Math.floor(translateX + (fx + 1) * tilePx);
+                int sy1 = (int) Math.floor(translateY + (fy + 1) * tilePx);
+                g2d.drawImage(tile, sx0, sy0, sx1, sy1, 0, 0, TILE_SIZE, TILE_SIZE, null);
+            }
+        }
+    }
 
-            g2d.setColor(partColors[w.getColor() % partColors.length]);
-            g2d.fillOval(w.getX() * 50 - VERTEX_RADIUS, w.getY() * 50 - VERTEX_RADIUS,
-                    2 * VERTEX_RADIUS, 2 * VERTEX_RADIUS);
+    private void requestTile(TileCache.Key key) {
+        if (!pendingTiles.add(key)) return;
+        if (tileExecutor == null) {
+            tileExecutor = Executors.newFixedThreadPool(TILE_THREADS, r -> {
+                Thread thread = new Thread(r, "GraphPanel-tiles");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        int version = tileVersion;
+        boolean[] parts = visibleParts.clone();
+        tileExecutor.execute(() -> {
+            try {
+                //kafelek nieaktualny zanim zaczal sie rysowac (zmiana skali lub widocznosci) jest pomijany
+                if (version != tileVersion || key.getScale() != scale) return;
+                BufferedImage tile = renderTile(key, parts);
+                if (version != tileVersion) return;
+                tiles.put(key, tile);
+                repaint();
+            } finally {
+                pendingTiles.remove(key);
+            }
+        });
+    }
+
+    private void invalidateTiles() {
+        tileVersion++;
+        tiles.clear();
+        pendingTiles.clear();
+        fallbackScale = -1;
+    }
 
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        if (tileExecutor != null) {
+            tileExecutor.shutdownNow();
+            tileExecutor = null;
+        }
+        invalidateTiles();
+    }
+
+    private BufferedImage renderTile(TileCache.Key key, boolean[] parts) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = tile.createGraphics();
+        try {
+            g2d.setColor(getBackground());
+            g2d.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            View view = new View(-(double) key.getTileX() * TILE_SIZE, -(double) key.getTileY() * TILE_SIZE, key.getScale(),
+                    TILE_SIZE, TILE_SIZE, parts);
+            paintView(g2d, view);
+        } finally {
+            g2d.dispose();
+        }
+        return tile;
+    }
+
+    private void paintView(Graphics2D g2d, View view) {
+        //poziom szczegolow wg gestosci wierzcholkow na ekranie
+        double spacingPx = averageSpacing * SPACING * view.scale;
+        if (spacingPx < DOTS_MIN_SPACING_PX) {
+            paintHeatmap(g2d, view);
+        } else if (spacingPx < FULL_DETAIL_MIN_SPACING_PX) {
+            paintDots(g2d, view, spacingPx);
+        } else {
+            paintFullDetail(g2d, view);
+        }
+    }
+
+    // mapa gestosci: komorki piramidy w kolorze przewazajacej partycji, przezroczystosc wg liczby wierzcholkow
+    // komorki wpisywane sa do malego obrazka (piksel = komorka), ktory jest potem skalowany jednym drawImage
+    private void paintHeatmap(Graphics2D g2d, View view) {
+        double unitPx = SPACING * view.scale;
+        int level = density.levelFor(HEATMAP_CELL_PX / unitPx);
+        int cx0 = Math.max(0, density.cellX(level, view.x0));
+        int cy0 = Math.max(0, density.cellY(level, view.y0));
+        int cx1 = Math.min(density.getCellsX(level) - 1, density.cellX(level, view.x1));
+        int cy1 = Math.min(density.getCellsY(level) - 1, density.cellY(level, view.y1));
+        if (cx0 > cx1 || cy0 > cy1) return;
+
+        int w = cx1 - cx0 + 1, h = cy1 - cy0 + 1;
+        BufferedImage heatmapImage = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) heatmapImage.getRaster().getDataBuffer()).getData();
+        int size = density.cellSize(level);
+        double expected = size * size / (averageSpacing * averageSpacing);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            int row = (cy - cy0) * w;
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int part = density.getDominant(level, cx, cy);
+                if (!view.isVisible(part)) continue;
+                double fill = density.getCount(level, cx, cy) / expected;
+                int alpha = (int) Math.max(1, Math.min(HEATMAP_ALPHA_LEVELS - 1, Math.round(fill * (HEATMAP_ALPHA_LEVELS - 1))));
+                pixels[row + cx - cx0] = heatColors[part % partColors.length][alpha].getRGB();
+            }
+        }
+
+        int sx0 = (int) Math.floor(view.screenX(density.originX(level, cx0) - 0.5));
+        int sy0 = (int) Math.floor(view.screenY(density.originY(level, cy0) - 0.5));
+        int sx1 = (int) Math.floor(view.screenX(density.originX(level, cx1 + 1) - 0.5));
+        int sy1 = (int) Math.floor(view.screenY(density.originY(level, cy1 + 1) - 0.5));
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(heatmapImage, sx0, sy0, sx1, sy1, 0, 0, w, h, null);
+    }
+
+    // krawedz jest widoczna, gdy widoczne sa partycje obu koncow
+    private void paintEdgeLayers(Graphics2D g2d, View view) {
+        layers.forEachEdgeLayer(view.x0, view.y0, view.x1, view.y1, (partA, partB, shape) -> {
+            if (view.isVisible(partA) && view.isVisible(partB)) g2d.draw(shape);
+        });
+    }
+
+    // kropki bez obwodek i etykiet; krawedzie tylko gdy wierzcholki nie zlewaja sie ze soba
+    private void paintDots(Graphics2D g2d, View view, double spacingPx) {
+        g2d.setTransform(view.worldTransform());
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+
+        if (spacingPx >= DOT_EDGES_MIN_SPACING_PX) {
+            g2d.setColor(Color.GRAY);
+            //linia o grubosci 1 piksela niezaleznie od skali
+            g2d.setStroke(new BasicStroke((float) (1 / view.scale)));
+            paintEdgeLayers(g2d, view);
+        }
+
+        layers.forEachVertexLayer(view.x0, view.y0, view.x1, view.y1, true, (part, same, shape) -> {
+            if (!view.isVisible(part)) return;
+            g2d.setColor(partColors[part % partColors.length]);
+            g2d.fill(shape);
+        });
+    }
+
+    private void paintFullDetail(Graphics2D g2d, View view) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setTransform(view.worldTransform());
+
+        // Rysuj tylko widoczne krawędzie
+        g2d.setColor(Color.GRAY);
+        g2d.setStroke(new BasicStroke(EDGE_THICKNESS));
+        paintEdgeLayers(g2d, view);
+
+        // Rysuj tylko widoczne wierzchołki - kolka warstwami, etykiety osobno
+        layers.forEachVertexLayer(view.x0, view.y0, view.x1, view.y1, false, (part, same, shape) -> {
+            if (!view.isVisible(part)) return;
+            g2d.setColor(partColors[part % partColors.length]);
+            g2d.fill(shape);
             g2d.setColor(Color.BLACK);
-            g2d.drawOval(w.getX() * 50 - VERTEX_RADIUS, w.getY() * 50 - VERTEX_RADIUS,
-                    2 * VERTEX_RADIUS, 2 * VERTEX_RADIUS);
+            g2d.draw(shape);
+        });
 
-            g2d.setColor(Color.WHITE);
-            g2d.setFont(new Font("Arial", Font.BOLD, 12));
-            String label = String.valueOf(w.getId());
-            FontMetrics fm = g2d.getFontMetrics();
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(LABEL_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+        //etykieta moze byc szersza niz kolko i wystawac na sasiedni kafelek
+        double margin = 2.0 * VERTEX_RADIUS / SPACING;
+        index.query(view.x0 - margin, view.y0 - margin, view.x1 + margin, view.y1 + margin, w -> {
+            if (!view.isVisible(graph.getColor(w))) return;
+            int cx = graph.getX(w) * SPACING, cy = graph.getY(w) * SPACING;
+            String label = String.valueOf(w);
             g2d.drawString(label,
-                    w.getX() * 50 - fm.stringWidth(label) / 2,
-                    w.getY() * 50 + fm.getAscent() / 4);
-        }
+                    cx - fm.stringWidth(label) / 2,
+                    cy + fm.getAscent() / 4);
+        });
     }
 }
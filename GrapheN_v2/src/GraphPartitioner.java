@@ -1,12 +1,32 @@
 import java.util.*;
 import java.io.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.nio.charset.StandardCharsets;
 
 public class GraphPartitioner
 {
+    private static final byte[] EDGE_SEPARATOR = " - ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NO_NEIGHBOR = " - -1".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] EMPTY_CELLS = "0.".repeat(4096).getBytes(StandardCharsets.US_ASCII);
+
     private Graph originalGraph;
     private int targetPartitions;
     private double balanceFactor;
     private Random random = new Random();
+    private int threads = 1;
+    private volatile ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    // redukcja konczy sie przy ok. 20 wierzcholkach na partycje albo gdy poziom zmniejsza graf o mniej niz 5%
+    private static final int COARSEN_TARGET_PER_PART = 20;
+    private static final int MIN_COARSEN_TARGET = 100;
+    private static final double MIN_COARSEN_RATIO = 0.95;
+    private static final int FM_PASSES = 4;
 
     public GraphPartitioner(Graph graph, int targetPartitions, double balanceFactor)
     {
@@ -15,268 +35,344 @@ public class GraphPartitioner
         this.balanceFactor = balanceFactor;
     }
 
-    public Map<Integer, Integer> partition() throws IOException
+    // przy threads > 1 redukowanie grafu dziala rownolegle na ForkJoinPool; wynik dla danego seeda jest ten sam
+    public void setThreads(int threads)
     {
+        this.threads = Math.max(1, threads);
+    }
 
-        Graph coarseGraph = coarsenGraph(originalGraph);
-
-
-        Map<Integer, Integer> partition = balancedInitialPartition(coarseGraph);
+    // postep fazy: phase to indeks w PhaseTimer.PHASES, fraction od 0 do 1;
+    // przy kilku probach wywolywany z wielu watkow, ale zawsze z postepem najwolniejszej proby (nie cofa sie)
+    public interface ProgressListener
+    {
+        void progress(int phase, double fraction);
+    }
 
+    public void setProgressListener(ProgressListener listener)
+    {
+        this.progressListener = listener;
+    }
 
-        partition = uncoarsenAndRefine(originalGraph, coarseGraph, partition);
+    // przerwanie podzialu z innego watku; partition() konczy sie wtedy CancellationException
+    // przy najblizszym punkcie kontrolnym (miedzy poziomami i fazami)
+    public void cancel()
+    {
+        cancelled = true;
+    }
 
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
 
-        partition = enforceBalanceAndConnectivity(originalGraph, partition);
+    // staly seed daje powtarzalny wynik (rowniez w trybie rownoleglym)
+    public void setSeed(long seed)
+    {
+        this.random = new Random(seed);
+    }
 
-        return partition;
+    // wynik: numer partycji dla kazdego wierzcholka (getPartition, indeks = id wierzcholka) oraz miary i czasy
+    public PartitionResult partition() throws IOException
+    {
+        return partition(1, threads);
     }
 
-//redukowanie grafu
-    private Graph coarsenGraph(Graph graph)
+    // kilka niezaleznych prob z roznymi seedami, wykonywanych rownolegle na threads watkach;
+    // zwracany jest najlepszy wynik (najpierw zbalansowany, potem najmniejsze przeciecie i nierownowaga)
+    public PartitionResult partition(int attempts, int threads) throws IOException
     {
-        Graph coarseGraph = new Graph();
-        Map<Integer, Integer> matching = new HashMap<>();
-        Set<Integer> matched = new HashSet<>();
-        List<Integer> vertices = new ArrayList<>(graph.getVertices());
-        Collections.shuffle(vertices);
+        attempts = Math.max(1, attempts);
+        threads = Math.max(1, threads);
 
-        // losowe dopasowanie
-        for (int i = 0; i < vertices.size(); i++)
+        //watki wykorzystuje budowa grafu poziomu 0, redukowanie grafu i liczenie miar wyniku
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try
         {
-            int v = vertices.get(i);
-            if (matched.contains(v)) continue;
-
-            //szukanie niedopasowanych sąsiadów
-            List<Vertices> neighbors = graph.getNeighbors(v);
-            List<Vertices> unmatchedNeighbors = new ArrayList<>();
-            for (Vertices neighbor : neighbors) {
-                if (!matched.contains(neighbor.getId()))
-                {
-                    unmatchedNeighbors.add(neighbor);
-                }
-            }
+            //poziom 0: nieskierowana kopia grafu wejsciowego, wspolna dla wszystkich prob (tylko do odczytu)
+            checkCancelled();
+            Graph fineGraph = symmetrize(originalGraph, pool);
+            long[] seeds = new long[attempts];
+            for (int i = 0; i < attempts; i++) seeds[i] = random.nextLong();
 
-            if (!unmatchedNeighbors.isEmpty())
-            {
-                //losowe wybranie wolnego sąsiada
-                Vertices u = unmatchedNeighbors.get(random.nextInt(unmatchedNeighbors.size()));
-                int coarseId = Math.min(v, u.getId());
-
-                //tworzenie superwierzchołka
-                Vertices vVertex = graph.getWierzcholki().get(v);
-                Vertices uVertex = graph.getWierzcholki().get(u.getId());
-                Vertices coarseVertex = new Vertices(
-                        coarseId,
-                        (vVertex.getX() + uVertex.getX()) / 2,
-                        (vVertex.getY() + uVertex.getY()) / 2,
-                        0
-                );
-
-                coarseGraph.addVertex(coarseId, coarseVertex);
-                matching.put(v, coarseId);
-                matching.put(u.getId(), coarseId);
-                matched.add(v);
-                matched.add(u.getId());
-            } else
+            if (attempts == 1)
             {
-                // dodanie niedopasowanych wierzchołków
-                coarseGraph.addVertex(v, new Vertices(v, graph.getWierzcholki().get(v).getX(),
-                        graph.getWierzcholki().get(v).getY(), 0));
-                matching.put(v, v);
+                return runAttempt(fineGraph, new Random(seeds[0]), pool, progressListener);
             }
+            return runAttempts(fineGraph, seeds, Math.min(threads, attempts), pool);
+        } finally
+        {
+            if (pool != null) pool.shutdown();
         }
+    }
 
-        //dodanie krawedzi miedzy superwierzcholkami
-        for (Vertices v : graph.getWierzcholki().values())
+    private PartitionResult runAttempts(Graph fineGraph, long[] seeds, int threads, ForkJoinPool pool) throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
         {
-            for (Vertices neighbor : v.getNeighbors())
+            List<Future<PartitionResult>> futures = new ArrayList<>();
+            CombinedProgress combined = new CombinedProgress(progressListener, seeds.length);
+            for (int i = 0; i < seeds.length; i++)
             {
-                int coarseV = matching.get(v.getId());
-                int coarseU = matching.get(neighbor.getId());
-                if (coarseV != coarseU)
-                {
-                    coarseGraph.addEdge(coarseV, coarseU);
-                }
+                long seed = seeds[i];
+                int attempt = i;
+                futures.add(executor.submit(() -> runAttempt(fineGraph, new Random(seed), pool,
+                        (phase, fraction) -> combined.progress(attempt, phase, fraction))));
+            }
+            //wyniki zbierane w kolejnosci seedow, wiec wybor jest powtarzalny
+            PartitionResult best = null;
+            for (Future<PartitionResult> future : futures)
+            {
+                PartitionResult attempt = future.get();
+                if (best == null || isBetter(attempt, best)) best = attempt;
             }
+            return best;
+        } catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Podzial grafu zostal przerwany");
+        } catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        } finally
+        {
+            executor.shutdownNow();
         }
-
-        return coarseGraph;
     }
 
-    //poczatkowy podzial
-    private Map<Integer, Integer> balancedInitialPartition(Graph graph)
+    // pojedyncza proba V-cycle; stan proby (losowanie, tablice) jest lokalny, graf wejsciowy tylko czytany
+    private PartitionResult runAttempt(Graph fineGraph, Random random, ForkJoinPool pool, ProgressListener listener)
     {
-        Map<Integer, Integer> partition = new HashMap<>();
-        List<Integer> vertices = new ArrayList<>(graph.getVertices());
-        Collections.shuffle(vertices);
+        long startNanos = System.nanoTime();
+        PhaseTimer timer = new PhaseTimer();
+
+        beginPhase(timer, listener, PhaseTimer.COARSEN);
+        List<CoarseLevel> levels = coarsen(fineGraph, random, pool, listener);
+        endPhase(timer, listener, PhaseTimer.COARSEN);
+
+        beginPhase(timer, listener, PhaseTimer.INITIAL);
+        int[] partition = initialPartition(coarsestGraph(fineGraph, levels), random);
+        endPhase(timer, listener, PhaseTimer.INITIAL);
+
+        beginPhase(timer, listener, PhaseTimer.UNCOARSEN);
+        partition = uncoarsen(fineGraph, levels, partition, listener);
+        endPhase(timer, listener, PhaseTimer.UNCOARSEN);
+
+        //poprawki spojnosci i balansu
+        beginPhase(timer, listener, PhaseTimer.CONNECTIVITY);
+        partition = ensureConnectivity(fineGraph, partition);
+        endPhase(timer, listener, PhaseTimer.CONNECTIVITY);
+        beginPhase(timer, listener, PhaseTimer.BALANCE);
+        boolean balanced = balancePartitions(fineGraph, partition);
+        endPhase(timer, listener, PhaseTimer.BALANCE);
+
+        return PartitionResult.compute(pool, fineGraph, partition, targetPartitions, balanced,
+                timer, System.nanoTime() - startNanos);
+    }
 
-        int avgSize = (int) Math.ceil((double) vertices.size() / targetPartitions);
-        int maxSize = (int) (avgSize * (1 + balanceFactor));
-        int[] partitionSizes = new int[targetPartitions];
+    // fazy V-cycle osobno (uzywane tez przez benchmarki); kazda faza czyta wynik poprzedniej
 
-        for (int v : vertices)
+    //redukowanie az do docelowego rozmiaru (V-cycle jak w METIS); pusta lista gdy graf jest juz maly
+    List<CoarseLevel> coarsen(Graph fineGraph, Random random, ForkJoinPool pool, ProgressListener listener)
+    {
+        List<CoarseLevel> levels = new ArrayList<>();
+        Graph coarseGraph = fineGraph;
+        int coarsenTarget = Math.max(COARSEN_TARGET_PER_PART * targetPartitions, MIN_COARSEN_TARGET);
+        //ograniczenie wagi superwierzcholka, zeby zaden nie zdominowal partycji
+        long maxVertexWeight = Math.max(1, (long) (1.5 * fineGraph.getTotalVertexWeight() / coarsenTarget));
+        while (coarseGraph.getVertexCount() > coarsenTarget)
         {
-            //znajdowanie najmniejszej partycji ktora nie przekracza limitu
-            int chosenPart = 0;
-            int minSize = Integer.MAX_VALUE;
-            for (int p = 0; p < targetPartitions; p++)
-            {
-                if (partitionSizes[p] < minSize && partitionSizes[p] < maxSize)
-                {
-                    minSize = partitionSizes[p];
-                    chosenPart = p;
-                }
-            }
-
-            partition.put(v, chosenPart);
-            partitionSizes[chosenPart]++;
+            checkCancelled();
+            //postep szacowany logarytmicznie - kazdy poziom zmniejsza graf mniej wiecej o polowe
+            report(listener, PhaseTimer.COARSEN, Math.log((double) fineGraph.getVertexCount() / coarseGraph.getVertexCount())
+                    / Math.log((double) fineGraph.getVertexCount() / coarsenTarget));
+            int[] fineToCoarse = new int[coarseGraph.getVertexCount()];
+            //zawsze ten sam algorytm dopasowania - wynik zalezy tylko od seeda, nie od liczby watkow
+            Graph next = ParallelCoarsener.coarsen(pool, coarseGraph, fineToCoarse, maxVertexWeight, random.nextLong());
+            //zatrzymanie, gdy dopasowanie prawie nic nie zmniejsza
+            if (next.getVertexCount() > MIN_COARSEN_RATIO * coarseGraph.getVertexCount()) break;
+            levels.add(new CoarseLevel(next, fineToCoarse));
+            coarseGraph = next;
         }
+        return levels;
+    }
 
-        return partition;
+    static Graph coarsestGraph(Graph fineGraph, List<CoarseLevel> levels)
+    {
+        return levels.isEmpty() ? fineGraph : levels.get(levels.size() - 1).graph;
     }
 
-    // uncoarsening i poczatkowe poprawki
-    private Map<Integer, Integer> uncoarsenAndRefine(Graph fineGraph, Graph coarseGraph, Map<Integer, Integer> coarsePartition)
+    int[] initialPartition(Graph coarseGraph, Random random)
     {
-        Map<Integer, Integer> finePartition = new HashMap<>();
+        int[] partition = balancedInitialPartition(coarseGraph, random);
+        refine(coarseGraph, partition);
+        return partition;
+    }
 
-        //odbudowanie struktury grafu
-        for (Vertices fineVertex : fineGraph.getWierzcholki().values())
+    //rzutowanie z powrotem poziom po poziomie, z poprawa FM na kazdym poziomie
+    int[] uncoarsen(Graph fineGraph, List<CoarseLevel> levels, int[] coarsePartition, ProgressListener listener)
+    {
+        int[] partition = coarsePartition;
+        for (int i = levels.size() - 1; i >= 0; i--)
         {
-            //znajdowanie odpowiadających podwierzchołkow
-            int coarseId = findCorrespondingCoarseVertex(fineVertex, coarseGraph);
-            if (coarsePartition.containsKey(coarseId))
-            {
-                finePartition.put(fineVertex.getId(), coarsePartition.get(coarseId));
-            } else
-            {
-                //jezeli nie znaleziono dopasowania, przypisuje do losowej partycji
-                //nie powinno sie zdarzac w teorii ale zapobiega bledom w duzych grafach
-                finePartition.put(fineVertex.getId(), random.nextInt(targetPartitions));
-            }
+            checkCancelled();
+            report(listener, PhaseTimer.UNCOARSEN, (double) (levels.size() - 1 - i) / levels.size());
+            Graph levelGraph = i == 0 ? fineGraph : levels.get(i - 1).graph;
+            partition = uncoarsenAndRefine(levelGraph, levels.get(i).fineToCoarse, partition);
         }
-
-        return finePartition;
-    }
-
-    //poprawki balansu i spojnosci
-    private Map<Integer, Integer> enforceBalanceAndConnectivity(Graph graph, Map<Integer, Integer> partition) {
-
-        partition = ensureConnectivity(graph, partition);
-
-
-        partition = balancePartitions(graph, partition);
-
         return partition;
     }
 
-    private Map<Integer, Integer> ensureConnectivity(Graph graph, Map<Integer, Integer> partition)
+    private void beginPhase(PhaseTimer timer, ProgressListener listener, int phase)
     {
-        Map<Integer, List<Integer>> partitions = new HashMap<>();
-        partition.forEach((v, p) -> partitions.computeIfAbsent(p, k -> new ArrayList<>()).add(v));
+        checkCancelled();
+        report(listener, phase, 0);
+        timer.start();
+    }
 
-        for (int p = 0; p < targetPartitions; p++) {
-            List<Integer> vertices = partitions.get(p);
-            if (vertices == null) continue;
+    private void endPhase(PhaseTimer timer, ProgressListener listener, int phase)
+    {
+        timer.stop(phase);
+        report(listener, phase, 1);
+    }
 
-            //znajdowanie polaczanych elementow
-            List<Set<Integer>> components = findConnectedComponents(graph, vertices);
+    private static void report(ProgressListener listener, int phase, double fraction)
+    {
+        if (listener != null) listener.progress(phase, Math.max(0, Math.min(1, fraction)));
+    }
 
-            if (components.size() > 1) {
-                Set<Integer> mainComponent = components.get(0);
-                for (int i = 1; i < components.size(); i++)
-                {
-                    for (int v : components.get(i))
-                    {
-                        // znajdowanie sasiednich partycji
-                        Map<Integer, Integer> adjacentPartitions = new HashMap<>();
-                        for (Vertices neighbor : graph.getNeighbors(v))
-                        {
-                            int neighborPart = partition.get(neighbor.getId());
-                            adjacentPartitions.put(neighborPart,
-                                    adjacentPartitions.getOrDefault(neighborPart, 0) + 1);
-                        }
+    // postep kilku rownoleglych prob: publikowany jest postep najwolniejszej z nich i tylko gdy rosnie,
+    // wiec pasek nie skacze miedzy fazami roznych prob
+    private static final class CombinedProgress
+    {
+        private final ProgressListener listener;
+        // faza + ulamek fazy dla kazdej proby
+        private final double[] done;
+        private double published = -1;
 
-                        //dopasowanie do najbardziej pasujacej partycji
-                        if (!adjacentPartitions.isEmpty())
-                        {
-                            int newPart = Collections.max(adjacentPartitions.entrySet(),
-                                    Map.Entry.comparingByValue()).getKey();
-                            partition.put(v, newPart);
-                        } else
-                        {
-                            //losowe przypisanie w przypadku brakow sasiednich partycji
-                            partition.put(v, random.nextInt(targetPartitions));
-                        }
-                    }
-                }
-            }
+        CombinedProgress(ProgressListener listener, int attempts)
+        {
+            this.listener = listener;
+            this.done = new double[attempts];
         }
 
-        return partition;
+        synchronized void progress(int attempt, int phase, double fraction)
+        {
+            if (listener == null) return;
+            done[attempt] = Math.max(done[attempt], phase + fraction);
+            double slowest = done[0];
+            for (double d : done) slowest = Math.min(slowest, d);
+            if (slowest <= published) return;
+            published = slowest;
+            int slowestPhase = Math.min((int) slowest, PhaseTimer.PHASES.length - 1);
+            listener.progress(slowestPhase, slowest - slowestPhase);
+        }
     }
 
-    private Map<Integer, Integer> balancePartitions(Graph graph, Map<Integer, Integer> partition)
+    private void checkCancelled()
     {
-        int totalVertices = graph.getVertexCount();
-        int avgSize = (int) Math.ceil((double) totalVertices / targetPartitions);
-        int maxSize = (int) (avgSize * (1 + balanceFactor));
-        int minSize = (int) (avgSize * (1 - balanceFactor));
+        if (cancelled) throw new CancellationException("Podzial grafu zostal anulowany");
+    }
 
-        //zliczanie obecnych rozmiarow
-        int[] partitionSizes = new int[targetPartitions];
-        partition.values().forEach(p -> partitionSizes[p]++);
+    // najpierw zbalansowany wynik, potem mniejsze przeciecie, potem mniejsza najwieksza partycja
+    private static boolean isBetter(PartitionResult a, PartitionResult b)
+    {
+        if (a.isBalanced() != b.isBalanced()) return a.isBalanced();
+        if (a.getEdgeCut() != b.getEdgeCut()) return a.getEdgeCut() < b.getEdgeCut();
+        return a.getMaxPartSize() < b.getMaxPartSize();
+    }
 
+    // jeden poziom hierarchii: graf zredukowany i rzutowanie z poziomu nizej
+    static final class CoarseLevel
+    {
+        final Graph graph;
+        final int[] fineToCoarse;
 
-        boolean balanced = false;
-        while (!balanced)
+        CoarseLevel(Graph graph, int[] fineToCoarse)
         {
-            balanced = true;
+            this.graph = graph;
+            this.fineToCoarse = fineToCoarse;
+        }
+    }
 
-            //znajdowanie najwiekszej i najmniejszej partycji
-            int largestPart = 0, smallestPart = 0;
-            for (int p = 1; p < targetPartitions; p++)
+    //nieskierowany graf bez petli - wejscie zawiera krawedzie tylko w jedna strone
+    static Graph symmetrize(Graph graph, ForkJoinPool pool)
+    {
+        int n = graph.getVertexCount();
+        GraphBuilder builder = new GraphBuilder(n, 2 * graph.getEdgeCount());
+        for (int v = 0; v < n; v++)
+        {
+            builder.addVertex(graph.getX(v), graph.getY(v));
+        }
+        for (int v = 0; v < n; v++)
+        {
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
             {
-                if (partitionSizes[p] > partitionSizes[largestPart]) largestPart = p;
-                if (partitionSizes[p] < partitionSizes[smallestPart]) smallestPart = p;
+                int u = graph.neighborAt(e);
+                if (u == v) continue;
+                builder.addEdge(v, u);
+                builder.addEdge(u, v);
             }
+        }
+        return builder.build(pool);
+    }
 
-            // sprawdzanie limitow
-            if (partitionSizes[largestPart] > maxSize ||
-                    partitionSizes[smallestPart] < minSize) {
-                balanced = false;
+    private static int[] shuffledVertices(int n, Random random)
+    {
+        int[] vertices = new int[n];
+        for (int v = 0; v < n; v++) vertices[v] = v;
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int tmp = vertices[i];
+            vertices[i] = vertices[j];
+            vertices[j] = tmp;
+        }
+        return vertices;
+    }
 
-                //znajdowanie wierzcholkow granicznych ktore mozna przesunac
-                List<Integer> borderVertices = new ArrayList<>();
-                for (int v : partition.keySet())
+    //poczatkowy podzial - rozrost regionow wszerz (BFS) z losowych ziaren
+    private int[] balancedInitialPartition(Graph graph, Random random)
+    {
+        int n = graph.getVertexCount();
+        int[] partition = new int[n];
+        Arrays.fill(partition, -1);
+        int[] seeds = shuffledVertices(n, random);
+        int nextSeed = 0;
+        int[] queue = new int[n];
+
+        long totalWeight = graph.getTotalVertexWeight();
+        long assignedWeight = 0;
+        for (int p = 0; p < targetPartitions; p++)
+        {
+            //partycja rosnie az osiagnie swoj udzial w calkowitej wadze
+            long targetWeight = totalWeight * (p + 1) / targetPartitions;
+            int head = 0, tail = 0;
+            while (assignedWeight < targetWeight || p == targetPartitions - 1)
+            {
+                if (head == tail)
                 {
-                    if (partition.get(v) == largestPart)
-                    {
-                        for (Vertices neighbor : graph.getNeighbors(v))
-                        {
-                            if (partition.get(neighbor.getId()) != largestPart)
-                            {
-                                borderVertices.add(v);
-                                break;
-                            }
-                        }
-                    }
+                    //nowe ziarno, gdy region nie ma juz wolnych sasiadow
+                    while (nextSeed < n && partition[seeds[nextSeed]] != -1) nextSeed++;
+                    if (nextSeed == n) break;
+                    int seed = seeds[nextSeed];
+                    partition[seed] = p;
+                    assignedWeight += graph.getVertexWeight(seed);
+                    queue[tail++] = seed;
+                    continue;
                 }
-
-                // przesuwanie wierzcholkow
-                if (!borderVertices.isEmpty())
+                int v = queue[head++];
+                for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
                 {
-                    Collections.shuffle(borderVertices);
-                    int verticesToMove = Math.min(borderVertices.size(), (partitionSizes[largestPart] - avgSize) / 2);
-
-                    for (int i = 0; i < verticesToMove; i++)
-                    {
-                        int v = borderVertices.get(i);
-                        partition.put(v, smallestPart);
-                        partitionSizes[largestPart]--;
-                        partitionSizes[smallestPart]++;
-                    }
+                    int u = graph.neighborAt(e);
+                    if (partition[u] != -1) continue;
+                    if (assignedWeight >= targetWeight && p < targetPartitions - 1) break;
+                    partition[u] = p;
+                    assignedWeight += graph.getVertexWeight(u);
+                    queue[tail++] = u;
                 }
             }
         }
@@ -284,189 +380,387 @@ public class GraphPartitioner
         return partition;
     }
 
+    // uncoarsening - kazdy wierzcholek dziedziczy partycje swojego superwierzcholka, potem poprawa FM
+    private int[] uncoarsenAndRefine(Graph fineGraph, int[] fineToCoarse, int[] coarsePartition)
+    {
+        int[] finePartition = new int[fineToCoarse.length];
+        for (int v = 0; v < fineToCoarse.length; v++)
+        {
+            finePartition[v] = coarsePartition[fineToCoarse[v]];
+        }
+        refine(fineGraph, finePartition);
+
+        return finePartition;
+    }
 
-    private int findCorrespondingCoarseVertex(Vertices fineVertex, Graph coarseGraph)
+    private void refine(Graph graph, int[] partition)
     {
-        //znajdowanie najblizszego superwierzcholka
-        double minDist = Double.MAX_VALUE;
-        int closest = -1;
+        long maxPartWeight = (long) Math.ceil(graph.getTotalVertexWeight() * (1 + balanceFactor) / targetPartitions);
+        new FMRefiner(graph, partition, targetPartitions, maxPartWeight).refine(FM_PASSES);
+    }
 
-        for (Vertices coarseVertex : coarseGraph.getWierzcholki().values())
+    // spojnosc partycji: w kazdej partycji zostaje najwieksza skladowa, mniejsze fragmenty
+    // (od najmniejszego) dolaczane sa do sasiedniej partycji, z ktora maja najwiecej polaczen
+    int[] ensureConnectivity(Graph graph, int[] partition)
+    {
+        int n = graph.getVertexCount();
+
+        //etykietowanie skladowych wszystkich partycji naraz jednym przejsciem BFS
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] queue = new int[n];
+        IntList componentWeight = new IntList();
+        IntList componentStart = new IntList();
+        int componentCount = 0;
+        int tail = 0;
+        for (int s = 0; s < n; s++)
+        {
+            if (component[s] != -1) continue;
+            int c = componentCount++;
+            int head = tail;
+            componentStart.add(head);
+            component[s] = c;
+            queue[tail++] = s;
+            long weight = 0;
+            while (head < tail)
+            {
+                int v = queue[head++];
+                weight += graph.getVertexWeight(v);
+                for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
+                {
+                    int u = graph.neighborAt(e);
+                    if (component[u] == -1 && partition[u] == partition[s])
+                    {
+                        component[u] = c;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            componentWeight.add((int) weight);
+        }
+        componentStart.add(n);
+        //queue zawiera teraz wierzcholki pogrupowane wg skladowych
+
+        //najwieksza skladowa kazdej partycji zostaje na miejscu
+        int[] mainComponent = new int[targetPartitions];
+        Arrays.fill(mainComponent, -1);
+        int[] componentPart = new int[componentCount];
+        for (int c = 0; c < componentCount; c++)
         {
-            double dist = Math.sqrt(Math.pow(fineVertex.getX() - coarseVertex.getX(), 2) + Math.pow(fineVertex.getY() - coarseVertex.getY(), 2));
-            if (dist < minDist)
+            int p = partition[queue[componentStart.get(c)]];
+            componentPart[c] = p;
+            if (mainComponent[p] == -1 || componentWeight.get(c) > componentWeight.get(mainComponent[p]))
             {
-                minDist = dist;
-                closest = coarseVertex.getId();
+                mainComponent[p] = c;
             }
         }
+        if (componentCount == targetPartitions - countEmptyParts(mainComponent)) return partition;
 
-        return closest;
-    }
+        int[] parent = new int[componentCount];
+        boolean[] anchored = new boolean[componentCount];
+        for (int c = 0; c < componentCount; c++) parent[c] = c;
+        for (int p = 0; p < targetPartitions; p++)
+        {
+            if (mainComponent[p] != -1) anchored[mainComponent[p]] = true;
+        }
 
-    private List<Set<Integer>> findConnectedComponents(Graph graph, List<Integer> vertices)
-    {
-        List<Set<Integer>> components = new ArrayList<>();
-        Set<Integer> visited = new HashSet<>();
+        //fragmenty od najmniejszego: waga w starszych 32 bitach, id w mlodszych
+        long[] fragments = new long[componentCount];
+        int fragmentCount = 0;
+        for (int c = 0; c < componentCount; c++)
+        {
+            if (!anchored[c]) fragments[fragmentCount++] = ((long) componentWeight.get(c) << 32) | c;
+        }
+        Arrays.sort(fragments, 0, fragmentCount);
 
-        for (int v : vertices)
+        int[] connection = new int[targetPartitions];
+        int[] touched = new int[targetPartitions];
+        for (int i = 0; i < fragmentCount; i++)
         {
-            if (!visited.contains(v))
+            int f = (int) fragments[i];
+            if (findRoot(parent, f) != f || anchored[f]) continue;
+
+            //zliczanie polaczen fragmentu z sasiednimi partycjami
+            int touchedCount = 0;
+            for (int q = componentStart.get(f); q < componentStart.get(f + 1); q++)
+            {
+                int v = queue[q];
+                for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
+                {
+                    int root = findRoot(parent, component[graph.neighborAt(e)]);
+                    if (root == f) continue;
+                    int p = componentPart[root];
+                    if (connection[p] == 0) touched[touchedCount++] = p;
+                    connection[p] += graph.edgeWeightAt(e);
+                }
+            }
+            //fragment bez sasiadow (osobna skladowa calego grafu) zostaje na miejscu
+            if (touchedCount == 0) continue;
+
+            int best = touched[0];
+            for (int t = 1; t < touchedCount; t++)
             {
-                Set<Integer> component = new HashSet<>();
-                Stack<Integer> stack = new Stack<>();
-                stack.push(v);
+                if (connection[touched[t]] > connection[best]) best = touched[t];
+            }
+            for (int t = 0; t < touchedCount; t++) connection[touched[t]] = 0;
 
-                while (!stack.isEmpty())
+            //dolaczenie do wszystkich sasiednich skladowych wybranej partycji
+            componentPart[f] = best;
+            for (int q = componentStart.get(f); q < componentStart.get(f + 1); q++)
+            {
+                int v = queue[q];
+                for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
                 {
-                    int current = stack.pop();
-                    if (!visited.contains(current))
+                    int root = findRoot(parent, component[graph.neighborAt(e)]);
+                    int own = findRoot(parent, f);
+                    if (root != own && componentPart[root] == best)
                     {
-                        visited.add(current);
-                        component.add(current);
-                        for (Vertices neighbor : graph.getNeighbors(current))
-                        {
-                            if (vertices.contains(neighbor.getId()))
-                            {
-                                stack.push(neighbor.getId());
-                            }
-                        }
+                        parent[own] = root;
+                        anchored[root] |= anchored[own];
                     }
                 }
-                components.add(component);
             }
         }
-        return components;
+
+        for (int v = 0; v < n; v++)
+        {
+            partition[v] = componentPart[findRoot(parent, component[v])];
+        }
+        return partition;
     }
 
-    public void savePartitionedGraph(Graph graph, Map<Integer, Integer> partition, String filePath) throws IOException
+    private static int countEmptyParts(int[] mainComponent)
     {
-        // przypisanie kolorow do partycji
-        for (Map.Entry<Integer, Vertices> entry : graph.getWierzcholki().entrySet()) {
-            entry.getValue().setColor(partition.get(entry.getKey()));
+        int empty = 0;
+        for (int c : mainComponent)
+        {
+            if (c == -1) empty++;
         }
+        return empty;
+    }
 
-        //zapisywanie do pliku txt
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filePath)))
+    private static int findRoot(int[] parent, int c)
+    {
+        while (parent[c] != c)
+        {
+            parent[c] = parent[parent[c]];
+            c = parent[c];
+        }
+        return c;
+    }
+
+    // true gdy udalo sie spelnic ograniczenie rozmiarow partycji
+    boolean balancePartitions(Graph graph, int[] partition)
+    {
+        long totalWeight = graph.getTotalVertexWeight();
+        long avgSize = (totalWeight + targetPartitions - 1) / targetPartitions;
+        long maxSize = (long) (avgSize * (1 + balanceFactor));
+        long minSize = (long) (avgSize * (1 - balanceFactor));
+
+        //przenoszenie wierzcholkow brzegowych, kazdy najwyzej raz
+        PartitionBalancer balancer = new PartitionBalancer(graph, partition, targetPartitions, minSize, maxSize);
+        return balancer.balance();
+    }
+
+    public void savePartitionedGraph(Graph graph, int[] partition, String filePath) throws IOException
+    {
+        // przypisanie kolorow do partycji
+        List<IntList> colorGroups = groupByPartition(graph, partition);
+        byte[] newLine = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+        //zapisywanie do pliku txt - strumieniowo, bez budowania macierzy w pamieci
+        try (ChannelWriter writer = new ChannelWriter(filePath))
         {
             // macierz sasiedztwa
             int maxX = 0, maxY = 0;
-            for (Vertices v : graph.getWierzcholki().values())
-            {
-                if (v.getX() > maxX) maxX = v.getX();
-                if (v.getY() > maxY) maxY = v.getY();
-            }
-
-            int[][] matrix = new int[maxY + 1][maxX + 1];
-            for (Vertices v : graph.getWierzcholki().values())
+            for (int v = 0; v < graph.getVertexCount(); v++)
             {
-                matrix[v.getY()][v.getX()] = 1;
+                if (graph.getX(v) > maxX) maxX = graph.getX(v);
+                if (graph.getY(v) > maxY) maxY = graph.getY(v);
             }
 
-            for (int i = 0; i < matrix.length; i++)
+            long[] cells = occupiedCells(graph);
+            int width = maxX + 1;
+            int c = 0;
+            for (int y = 0; y <= maxY; y++)
             {
-                writer.print("[");
-                for (int j = 0; j < matrix[i].length; j++)
+                writer.writeByte('[');
+                int x = 0;
+                while (x < width)
                 {
-                    writer.print(matrix[i][j]);
-                    if (j < matrix[i].length - 1) writer.print(".");
+                    int nextX = (c < cells.length && cellY(cells[c]) == y) ? cellX(cells[c]) : width;
+                    if (nextX == width)
+                    {
+                        // puste pola do konca wiersza
+                        writeEmptyCells(writer, width - x - 1);
+                        writer.writeByte('0');
+                        break;
+                    }
+                    writeEmptyCells(writer, nextX - x);
+                    writer.writeByte('1');
+                    if (nextX < width - 1) writer.writeByte('.');
+                    x = nextX + 1;
+                    c++;
                 }
-                writer.println("]");
+                writer.writeByte(']');
+                writer.writeBytes(newLine);
             }
 
-            //writer.println();
-            //writer.println();
-
             //polaczenia i kolory
-            Map<Integer, List<Vertices>> colorGroups = new HashMap<>();
-            for (Vertices v : graph.getWierzcholki().values())
-            {
-                colorGroups.computeIfAbsent(v.getColor(), k -> new ArrayList<>()).add(v);
-            }
-
-            for (Map.Entry<Integer, List<Vertices>> entry : colorGroups.entrySet())
+            for (IntList group : colorGroups)
             {
-                List<Vertices> group = entry.getValue();
-                for (Vertices v : group)
+                if (group.size() == 0) continue;
+                for (int g = 0; g < group.size(); g++)
                 {
-                    for (Vertices neighbor : v.getNeighbors())
+                    int v = group.get(g);
+                    for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++)
                     {
-                        writer.println(v.getId() + " - " + neighbor.getId());
+                        writer.writeAsciiInt(v);
+                        writer.writeBytes(EDGE_SEPARATOR);
+                        writer.writeAsciiInt(graph.neighborAt(e));
+                        writer.writeBytes(newLine);
                     }
-                    if (v.getNeighbors().isEmpty())
+                    if (graph.degree(v) == 0)
                     {
-                        writer.println(v.getId() + " - -1");
+                        writer.writeAsciiInt(v);
+                        writer.writeBytes(NO_NEIGHBOR);
+                        writer.writeBytes(newLine);
                     }
                 }
-                writer.println();
+                writer.writeBytes(newLine);
             }
         }
     }
-    public void savePartitionedGraphBIN(Graph graph, Map<Integer, Integer> partition, String filePath) throws IOException {
-        //przypisanie kolorow do partycji
-        for (Map.Entry<Integer, Vertices> entry : graph.getWierzcholki().entrySet()) {
-            entry.getValue().setColor(partition.get(entry.getKey()));
+
+    //zapis count pustych pol "0." kopiowanych blokami z gotowego wzorca
+    private static void writeEmptyCells(ChannelWriter writer, int count) throws IOException
+    {
+        while (count > 0)
+        {
+            int chunk = Math.min(count, EMPTY_CELLS.length / 2);
+            writer.writeBytes(EMPTY_CELLS, 0, 2 * chunk);
+            count -= chunk;
         }
+    }
+
+    public void savePartitionedGraphBIN(Graph graph, int[] partition, String filePath) throws IOException {
+        //przypisanie kolorow do partycji
+        List<IntList> partitions = groupByPartition(graph, partition);
 
-        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(filePath))) {
+        try (ChannelWriter out = new ChannelWriter(filePath)) {
             //wymiary macierzy
             int maxX = 0, maxY = 0;
-            for (Vertices v : graph.getWierzcholki().values()) {
-                if (v.getX() > maxX) maxX = v.getX();
-                if (v.getY() > maxY) maxY = v.getY();
+            for (int v = 0; v < graph.getVertexCount(); v++) {
+                if (graph.getX(v) > maxX) maxX = graph.getX(v);
+                if (graph.getY(v) > maxY) maxY = graph.getY(v);
             }
 
-
-            dos.writeInt(Integer.reverseBytes(maxX + 1));
-            dos.writeInt(Integer.reverseBytes(maxY + 1));
-
-            //zapisywanie macierzy
-            int[][] matrix = new int[maxY + 1][maxX + 1];
-            for (Vertices v : graph.getWierzcholki().values()) {
-                matrix[v.getY()][v.getX()] = 1;
+            //zajete pola zapisywane jako odcinki (y, x, dlugosc) zamiast pelnej macierzy
+            long[] cells = occupiedCells(graph);
+            int runCount = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (i == 0 || cells[i] != cells[i - 1] + 1) runCount++;
             }
 
-            for (int i = 0; i < matrix.length; i++) {
-                for (int j = 0; j < matrix[i].length; j++) {
-                    dos.writeInt(Integer.reverseBytes(matrix[i][j]));
+            out.writeIntLE(Graph.BIN_MAGIC);
+            out.writeIntLE(Graph.BIN_VERSION_SPARSE);
+            out.writeIntLE(maxX + 1);
+            out.writeIntLE(maxY + 1);
+            out.writeIntLE(cells.length);
+            out.writeIntLE(runCount);
+
+            int runStart = 0;
+            for (int i = 1; i <= cells.length; i++) {
+                if (i == cells.length || cells[i] != cells[i - 1] + 1) {
+                    out.writeIntLE(cellY(cells[runStart]));
+                    out.writeIntLE(cellX(cells[runStart]));
+                    out.writeIntLE(i - runStart);
+                    runStart = i;
                 }
             }
 
             // zapisywanie podgrafow
-            Map<Integer, List<Vertices>> partitions = new HashMap<>();
-            for (Vertices v : graph.getWierzcholki().values()) {
-                partitions.computeIfAbsent(v.getColor(), k -> new ArrayList<>()).add(v);
+            int nonEmpty = 0;
+            for (IntList group : partitions) {
+                if (group.size() > 0) nonEmpty++;
             }
 
             // liczba podgrafow
-            dos.writeInt(Integer.reverseBytes(partitions.size()));
+            out.writeIntLE(nonEmpty);
 
-            for (Map.Entry<Integer, List<Vertices>> entry : partitions.entrySet()) {
-                List<Vertices> group = entry.getValue();
+            for (IntList group : partitions) {
+                if (group.size() == 0) continue;
 
                 //obliczenie liczby polaczen miedzy wierzcholkami
                 int pairCount = 0;
-                for (Vertices v : group) {
-                    pairCount += Math.max(1, v.getNeighbors().size());
+                for (int g = 0; g < group.size(); g++) {
+                    pairCount += Math.max(1, graph.degree(group.get(g)));
                 }
 
                 // naglowek partycji
-                dos.writeInt(Integer.reverseBytes(pairCount));
+                out.writeIntLE(pairCount);
 
                 // lista krawedzi
-                for (Vertices v : group) {
-                    if (v.getNeighbors().isEmpty()) {
-                        dos.writeInt(Integer.reverseBytes(v.getId()));
-                        dos.writeInt(Integer.reverseBytes(-1));
+                for (int g = 0; g < group.size(); g++) {
+                    int v = group.get(g);
+                    if (graph.degree(v) == 0) {
+                        out.writeIntLE(v);
+                        out.writeIntLE(-1);
                     } else {
                         //wszystkie krawedzie danego wierzcholka
-                        for (Vertices neighbor : v.getNeighbors()) {
-                            dos.writeInt(Integer.reverseBytes(v.getId()));
-                            dos.writeInt(Integer.reverseBytes(neighbor.getId()));
+                        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                            out.writeIntLE(v);
+                            out.writeIntLE(graph.neighborAt(e));
                         }
                     }
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    // zrzut GraphSnapshot z numerami partycji jako kolorami wierzcholkow - otwierany bez parsowania
+    public void savePartitionedGraphSnapshot(Graph graph, int[] partition, String filePath) throws IOException {
+        graph.saveSnapshot(filePath, partition);
+    }
+
+    //posortowane wierszami, unikalne pozycje wierzcholkow zakodowane jako (y << 32) | x
+    private static long[] occupiedCells(Graph graph)
+    {
+        int n = graph.getVertexCount();
+        long[] cells = new long[n];
+        for (int v = 0; v < n; v++)
+        {
+            cells[v] = ((long) graph.getY(v) << 32) | graph.getX(v);
+        }
+        Arrays.sort(cells);
+        int unique = 0;
+        for (int i = 0; i < n; i++)
+        {
+            if (i == 0 || cells[i] != cells[unique - 1]) cells[unique++] = cells[i];
+        }
+        return unique == n ? cells : Arrays.copyOf(cells, unique);
+    }
+
+    private static int cellX(long cell)
+    {
+        return (int) cell;
+    }
+
+    private static int cellY(long cell)
+    {
+        return (int) (cell >>> 32);
+    }
+
+    //grupowanie wierzcholkow wg numeru partycji, w kazdej grupie rosnaco po id
+    private List<IntList> groupByPartition(Graph graph, int[] partition)
+    {
+        List<IntList> groups = new ArrayList<>();
+        for (int v = 0; v < graph.getVertexCount(); v++)
+        {
+            int p = partition[v];
+            while (groups.size() <= p) groups.add(new IntList());
+            groups.get(p).add(v);
+        }
+        return groups;
+    }
+}
@@ -5,6 +5,8 @@ import java.awt.event.ActionListener;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 public class GraphPartitioningPanel extends JPanel {
     public int n;
@@ -16,7 +18,11 @@ public class GraphPartitioningPanel extends JPanel {
     private JTextField marginErrorField;
     private JRadioButton optionTxt;
     private JRadioButton optionBin;
+    private JRadioButton optionGsnap;
     private JButton submit;
+    private JButton cancel;
+    private JProgressBar progressBar;
+    private PartitionWorker worker;
 
     public GraphPartitioningPanel() {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -45,21 +51,33 @@ public class GraphPartitioningPanel extends JPanel {
         optionTxt.setFocusable(false);
         optionBin = new JRadioButton(".bin");
         optionBin.setFocusable(false);
+        optionGsnap = new JRadioButton(GraphSnapshot.EXTENSION);
+        optionGsnap.setFocusable(false);
         ButtonGroup outputFormatGroup = new ButtonGroup();
         outputFormatGroup.add(optionTxt);
         outputFormatGroup.add(optionBin);
+        outputFormatGroup.add(optionGsnap);
 
         submit = new JButton();
         submit.setText("Submit");
         submit.setFocusable(false);
         submit.setEnabled(false);
-        submit.addActionListener(e -> {
-            try {
-                printOptions();
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
+        submit.addActionListener(e -> printOptions());
+
+        // podzial dziala w tle - przycisk anulowania i pasek postepu
+        cancel = new JButton("Cancel");
+        cancel.setFocusable(false);
+        cancel.setEnabled(false);
+        cancel.addActionListener(e -> {
+            if (worker != null) {
+                worker.requestCancel();
+                cancel.setEnabled(false);
+                progressBar.setString("Cancelling...");
             }
         });
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
 
 
         // Dodanie komponentów
@@ -72,42 +90,189 @@ public class GraphPartitioningPanel extends JPanel {
         add(new JLabel("Output format:"));
         add(optionTxt);
         add(optionBin);
+        add(optionGsnap);
         add(submit);
+        add(cancel);
+        add(progressBar);
     }
 
-    private void printOptions() throws IOException {
-        Graph graf = Graph.loadCSRRGGraph(selectedFile.getAbsolutePath());
+    private void printOptions() {
+        try {
+            if (!splitCountField.getText().isEmpty()) {
+                n = Integer.parseInt(splitCountField.getText().trim());
+            } else {
+                n = 2;
+            }
+            if (!marginErrorField.getText().isEmpty()) {
+                margin = Integer.parseInt(marginErrorField.getText().trim());
+            } else {
+                margin = 10;
+            }
+        } catch (NumberFormatException ex) {
+            showCenteredMessage("Number of splits and margin of error must be integers", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (n < 1) {
+            showCenteredMessage("Number of splits must be positive", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-        if (!splitCountField.getText().isEmpty()) {
-            n = Integer.parseInt(splitCountField.getText());
-        } else {
-            n = 2;
+        submit.setEnabled(false);
+        cancel.setEnabled(true);
+        progressBar.setValue(0);
+        String extension = optionBin.isSelected() ? ".bin" : optionGsnap.isSelected() ? GraphSnapshot.EXTENSION : ".txt";
+        worker = new PartitionWorker(selectedFile, n, margin, extension);
+        worker.execute();
+    }
+
+    // stan postepu przekazywany z watku roboczego do EDT
+    private static final class Progress {
+        final String label;
+        final int percent;
+
+        Progress(String label, int percent) {
+            this.label = label;
+            this.percent = percent;
         }
-        if (!marginErrorField.getText().isEmpty()) {
-            margin = Integer.parseInt(marginErrorField.getText());
-        } else {
-            margin = 10;
+    }
+
+    // wynik pracy w tle
+    private static final class Outcome {
+        final PartitionResult result;
+        final String outputPath;
+        final String reportPath;
+        final String cacheStatus;
+
+        Outcome(PartitionResult result, String outputPath, String reportPath, String cacheStatus) {
+            this.result = result;
+            this.outputPath = outputPath;
+            this.reportPath = reportPath;
+            this.cacheStatus = cacheStatus;
         }
+    }
 
-        GraphPartitioner partitioner = new GraphPartitioner(graf, n, margin/100.0);
-        Map<Integer, Integer> partition = partitioner.partition();
+    // wczytanie, podzial i zapis poza EDT; wynik pokazywany dopiero po zakonczeniu
+    private class PartitionWorker extends SwingWorker<Outcome, Progress> {
+        // wczytywanie i zapis zajmuja po 10% paska, fazy podzialu reszte
+        private static final int LOAD_PERCENT = 10;
+        private static final int SAVE_PERCENT = 10;
 
-        String basePath = selectedFile.getAbsolutePath().replace(".csrrg", "_partitioned").replace("og_files", "own_java");
-        String outputPath;
+        private final File inputFile;
+        private final int parts;
+        private final int marginPercent;
+        // rozszerzenie pliku wynikowego: .txt, .bin albo .gsnap
+        private final String extension;
+        private volatile GraphPartitioner partitioner;
+        private volatile boolean cancelRequested;
 
-        if (optionBin.isSelected()) {
-            outputPath = basePath + ".bin";
-            partitioner.savePartitionedGraphBIN(graf, partition, outputPath);
-        } else {
-            outputPath = basePath + ".txt";
-            partitioner.savePartitionedGraph(graf, partition, outputPath);
+        PartitionWorker(File inputFile, int parts, int marginPercent, String extension) {
+            this.inputFile = inputFile;
+            this.parts = parts;
+            this.marginPercent = marginPercent;
+            this.extension = extension;
         }
 
-        showCenteredMessage(
-                "Graph partitioned into " + n + " parts\n" +
-                        "Saved to: " + outputPath,
-                "Success",
-                JOptionPane.INFORMATION_MESSAGE);
+        void requestCancel() {
+            cancelRequested = true;
+            GraphPartitioner current = partitioner;
+            if (current != null) current.cancel();
+        }
+
+        private void checkCancelled() {
+            if (cancelRequested) throw new CancellationException("Podzial grafu zostal anulowany");
+        }
+
+        @Override
+        protected Outcome doInBackground() throws IOException {
+            publish(new Progress("Loading graph", 0));
+            //ponowny podzial tego samego pliku nie wczytuje go drugi raz
+            GraphCache.Lookup lookup = GraphCache.shared().load(inputFile.getAbsolutePath(), "csrrg", Graph::loadCSRRGGraph);
+            Graph graf = lookup.getGraph();
+            publish(new Progress(lookup.isHit() ? "Loaded from cache" : "Loaded", LOAD_PERCENT));
+            checkCancelled();
+
+            GraphPartitioner current = new GraphPartitioner(graf, parts, marginPercent / 100.0);
+            int phases = PhaseTimer.PHASES.length;
+            current.setProgressListener((phase, fraction) -> publish(new Progress(PhaseTimer.PHASES[phase],
+                    LOAD_PERCENT + (int) ((phase + fraction) * (100 - LOAD_PERCENT - SAVE_PERCENT) / phases))));
+            partitioner = current;
+            //anulowanie mogl przyjsc zanim partitioner byl widoczny dla requestCancel
+            if (cancelRequested) current.cancel();
+            PartitionResult result = current.partition();
+            checkCancelled();
+
+            publish(new Progress("Saving", 100 - SAVE_PERCENT));
+            String basePath = inputFile.getAbsolutePath().replace(".csrrg", "_partitioned").replace("og_files", "own_java");
+            String outputPath = basePath + extension;
+            if (extension.equals(".bin")) {
+                current.savePartitionedGraphBIN(graf, result.getPartition(), outputPath);
+            } else if (extension.equals(GraphSnapshot.EXTENSION)) {
+                current.savePartitionedGraphSnapshot(graf, result.getPartition(), outputPath);
+            } else {
+                current.savePartitionedGraph(graf, result.getPartition(), outputPath);
+            }
+            //raport z miarami i czasami obok pliku wynikowego
+            String reportPath = result.writeReport(outputPath);
+            publish(new Progress("Done", 100));
+            String cacheStatus = (lookup.isHit() ? "Cache hit. " : "Cache miss. ") + GraphCache.shared().describe();
+            return new Outcome(result, outputPath, reportPath, cacheStatus);
+        }
+
+        @Override
+        protected void process(List<Progress> chunks) {
+            Progress last = chunks.get(chunks.size() - 1);
+            if (cancelRequested) return;
+            progressBar.setValue(last.percent);
+            progressBar.setString(last.label + " " + last.percent + "%");
+        }
+
+        @Override
+        protected void done() {
+            submit.setEnabled(selectedFile != null);
+            cancel.setEnabled(false);
+            worker = null;
+            Outcome outcome;
+            try {
+                outcome = get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CancellationException) {
+                    progressBar.setValue(0);
+                    progressBar.setString("Cancelled");
+                    return;
+                }
+                progressBar.setString("Failed");
+                showCenteredMessage("Partitioning failed: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            showResult(outcome, parts, marginPercent);
+        }
+    }
+
+    private void showResult(Outcome outcome, int parts, int marginPercent) {
+        PartitionResult result = outcome.result;
+        if (result.isBalanced()) {
+            showCenteredMessage(
+                    "Graph partitioned into " + parts + " parts\n" +
+                            result.summary() + "\n" +
+                            "Saved to: " + outcome.outputPath + "\n" +
+                            "Report: " + outcome.reportPath + "\n" +
+                            outcome.cacheStatus,
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            showCenteredMessage(
+                    "Graph partitioned into " + parts + " parts, but the " + marginPercent + "% margin could not be met\n" +
+                            result.summary() + "\n" +
+                            "Saved to: " + outcome.outputPath + "\n" +
+                            "Report: " + outcome.reportPath + "\n" +
+                            outcome.cacheStatus,
+                    "Warning",
+                    JOptionPane.WARNING_MESSAGE);
+        }
     }
 
     private void showCenteredMessage(String message, String title, int messageType) {
@@ -0,0 +1,192 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+// natywny zrzut grafu (.gsnap): tablice CSR zapisane tak jak leza w pamieci, wiec odczyt to
+// zmapowanie pliku i hurtowe skopiowanie sekcji do tablic, bez parsowania pojedynczych liczb
+// sekcje sa kopiowane do tablic na stercie, bo na nich pracuja podzial i rysowanie, a zmapowany plik
+// zostawalby zablokowany do czasu GC (zob. MappedTextFile)
+// odczyt sprawdza naglowek (magic, wersja, CRC naglowka, rozmiary), domyslnie CRC32C calych danych, a zawsze
+// takze strukture CSR (offsets niemalejace w [0, m], sasiedzi w [0, n)), zanim graf trafi do podzialu lub widoku
+//
+// naglowek (64 bajty, little-endian):
+//   0 magic "GSNP", 4 wersja, 8 liczba wierzcholkow, 12 liczba krawedzi (dlugosc adjacency),
+//   16 flagi (1 = wagi wierzcholkow, 2 = wagi krawedzi), 24 dlugosc danych (long),
+//   32 CRC32C danych, 60 CRC32C bajtow 0..59 naglowka (reszta naglowka to zera)
+// dane: offsets (n + 1), adjacency (m), x (n), y (n), kolory/partycje (n), [wagi wierzcholkow (n)],
+// [wagi krawedzi (m)]; kazda sekcja zaczyna sie na granicy 64 bajtow
+public final class GraphSnapshot {
+    public static final String EXTENSION = ".gsnap";
+
+    private static final int MAGIC = 0x504E5347;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_CRC = 60;
+    private static final int ALIGNMENT = 64;
+    private static final int FLAG_VERTEX_WEIGHTS = 1;
+    private static final int FLAG_EDGE_WEIGHTS = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    static void write(String filePath, int[] offsets, int[] adjacency, int[] xs, int[] ys, int[] colors,
+                      int[] vertexWeights, int[] edgeWeights) throws IOException {
+        int[][] sections = sections(offsets, adjacency, xs, ys, colors, vertexWeights, edgeWeights);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            //dane pisane za naglowkiem; naglowek z suma kontrolna na koncu
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C crc = new CRC32C();
+            long position = HEADER_SIZE;
+            for (int[] section : sections) {
+                int done = 0;
+                while (done < section.length) {
+                    buffer.clear();
+                    int chunk = Math.min(section.length - done, BUFFER_SIZE / Integer.BYTES);
+                    buffer.asIntBuffer().put(section, done, chunk);
+                    buffer.limit(chunk * Integer.BYTES);
+                    position += writeFully(channel, buffer, position, crc);
+                    done += chunk;
+                }
+                int padding = (int) (align(position) - position);
+                if (padding > 0) {
+                    buffer.clear();
+                    buffer.put(new byte[padding]).flip();
+                    position += writeFully(channel, buffer, position, crc);
+                }
+            }
+
+            int flags = (vertexWeights != null ? FLAG_VERTEX_WEIGHTS : 0) | (edgeWeights != null ? FLAG_EDGE_WEIGHTS : 0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, xs.length);
+            header.putInt(12, adjacency.length);
+            header.putInt(16, flags);
+            header.putLong(24, position - HEADER_SIZE);
+            header.putInt(32, (int) crc.getValue());
+            header.putInt(HEADER_CRC, headerCrc(header));
+            writeFully(channel, header, 0, null);
+        }
+    }
+
+    static Graph read(String filePath, boolean verifyData) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, filePath);
+            int n = header.getInt(8);
+            int m = header.getInt(12);
+            int flags = header.getInt(16);
+            int[] offsets = new int[n + 1];
+            int[] adjacency = new int[m];
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            int[] colors = new int[n];
+            int[] vertexWeights = (flags & FLAG_VERTEX_WEIGHTS) != 0 ? new int[n] : null;
+            int[] edgeWeights = (flags & FLAG_EDGE_WEIGHTS) != 0 ? new int[m] : null;
+
+            //kazda sekcja mapowana osobno (mapowanie ma limit 2 GB) i kopiowana jednym get
+            CRC32C crc = verifyData ? new CRC32C() : null;
+            long position = HEADER_SIZE;
+            for (int[] section : sections(offsets, adjacency, xs, ys, colors, vertexWeights, edgeWeights)) {
+                long length = align(position + (long) section.length * Integer.BYTES) - position;
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (crc != null) crc.update(bytes.duplicate());
+                bytes.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(section);
+                position += length;
+            }
+            if (crc != null && (int) crc.getValue() != header.getInt(32)) {
+                throw new IOException("Niepoprawna suma kontrolna zrzutu grafu: " + filePath);
+            }
+            checkStructure(offsets, adjacency, n, m, filePath);
+            return new Graph(offsets, adjacency, xs, ys, colors, vertexWeights, edgeWeights);
+        }
+    }
+
+    // bez tego uszkodzony plik z poprawnym naglowkiem (albo bez sprawdzania CRC) wysypalby sie dopiero
+    // przy indeksowaniu tablic w SpatialIndex czy GraphPartitioner
+    private static void checkStructure(int[] offsets, int[] adjacency, int n, int m, String filePath) throws IOException {
+        if (offsets[0] != 0 || offsets[n] != m) throw new IOException("Niespojne offsets w zrzucie grafu: " + filePath);
+        for (int v = 0; v < n; v++) {
+            if (offsets[v + 1] < offsets[v]) throw new IOException("Niespojne offsets w zrzucie grafu: " + filePath);
+        }
+        for (int e = 0; e < m; e++) {
+            if (adjacency[e] < 0 || adjacency[e] >= n) {
+                throw new IOException("Sasiad spoza zakresu wierzcholkow w zrzucie grafu: " + filePath);
+            }
+        }
+    }
+
+    // naglowek po sprawdzeniu magic, wersji, CRC naglowka i zgodnosci rozmiaru pliku z n, m i flagami
+    private static ByteBuffer readHeader(FileChannel channel, String filePath) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_SIZE) throw new IOException("Plik jest za krotki na zrzut grafu: " + filePath);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) <= 0) throw new EOFException();
+        }
+        if (header.getInt(0) != MAGIC) throw new IOException("To nie jest zrzut grafu: " + filePath);
+        if (header.getInt(4) != VERSION) throw new IOException("Nieobslugiwana wersja zrzutu grafu: " + header.getInt(4));
+        if (header.getInt(HEADER_CRC) != headerCrc(header)) throw new IOException("Uszkodzony naglowek zrzutu grafu: " + filePath);
+
+        int n = header.getInt(8);
+        int m = header.getInt(12);
+        int flags = header.getInt(16);
+        long payload = header.getLong(24);
+        if (n < 0 || m < 0 || payload != payloadLength(n, m, flags) || size != HEADER_SIZE + payload) {
+            throw new IOException("Niespojny rozmiar zrzutu grafu: " + filePath);
+        }
+        return header;
+    }
+
+    private static int[][] sections(int[] offsets, int[] adjacency, int[] xs, int[] ys, int[] colors,
+                                    int[] vertexWeights, int[] edgeWeights) {
+        int count = 5 + (vertexWeights != null ? 1 : 0) + (edgeWeights != null ? 1 : 0);
+        int[][] sections = new int[count][];
+        sections[0] = offsets;
+        sections[1] = adjacency;
+        sections[2] = xs;
+        sections[3] = ys;
+        sections[4] = colors;
+        int next = 5;
+        if (vertexWeights != null) sections[next++] = vertexWeights;
+        if (edgeWeights != null) sections[next] = edgeWeights;
+        return sections;
+    }
+
+    private static long payloadLength(int n, int m, int flags) {
+        long position = HEADER_SIZE;
+        position = align(position + (n + 1L) * Integer.BYTES);
+        position = align(position + (long) m * Integer.BYTES);
+        for (int i = 0; i < 3; i++) position = align(position + (long) n * Integer.BYTES);
+        if ((flags & FLAG_VERTEX_WEIGHTS) != 0) position = align(position + (long) n * Integer.BYTES);
+        if ((flags & FLAG_EDGE_WEIGHTS) != 0) position = align(position + (long) m * Integer.BYTES);
+        return position - HEADER_SIZE;
+    }
+
+    private static long align(long position) {
+        return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int headerCrc(ByteBuffer header) {
+        CRC32C crc = new CRC32C();
+        crc.update(header.duplicate().position(0).limit(HEADER_CRC));
+        return (int) crc.getValue();
+    }
+
+    // zwraca liczbe zapisanych bajtow; crc (moze byc null) liczony z zapisanych danych
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position, CRC32C crc) throws IOException {
+        if (crc != null) crc.update(buffer.duplicate());
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 
 public class GraphVisualizerPanel extends JPanel {
     JLabel fileLabel;
+    JLabel cacheLabel = new JLabel(" ");
     JButton submit = new JButton();
     File selectedFile;
     public GraphVisualizerPanel(MainFrame parent) {
@@ -36,12 +37,14 @@ public class GraphVisualizerPanel extends JPanel {
         add(fileChooserButton);
         add(fileLabel);
         add(submit);
+        add(cacheLabel);
     }
 
     private void visualizeGraph(MainFrame parent){
         try {
             String extension = "";
-            Graph graf = new Graph();
+            //grafy wczytywane przez wspolna pamiec podreczna (takze z panelu podzialu)
+            GraphCache.Lookup lookup = null;
             String name = selectedFile.getAbsolutePath();
             int lastDotIndex = name.lastIndexOf('.');
             if (lastDotIndex > 0 && lastDotIndex < name.length() - 1) {
@@ -49,7 +52,7 @@ public class GraphVisualizerPanel extends JPanel {
             }
             if(extension.equals("csrrg")){
                 if(selectedFile.getAbsolutePath().contains("og_files")){
-                    graf = Graph.loadCSRRGGraph(selectedFile.getAbsolutePath());
+                    lookup = GraphCache.shared().load(selectedFile.getAbsolutePath(), "csrrg", Graph::loadCSRRGGraph);
                 }else{
                     showCenteredMessage(
                             "Plik .csrrg musi być w folderze 'og_files'!",
@@ -60,23 +63,26 @@ public class GraphVisualizerPanel extends JPanel {
 
             }else if(extension.equals("txt")){
                 if(selectedFile.getAbsolutePath().contains("own_c") || selectedFile.getAbsolutePath().contains("own_java")){
-                    graf = Graph.loadCGraphTXT(selectedFile.getAbsolutePath());
+                    lookup = GraphCache.shared().load(selectedFile.getAbsolutePath(), "cgraph-txt", Graph::loadCGraphTXT);
                 }else if(selectedFile.getAbsolutePath().contains("supplied_c")){
-                    graf = Graph.loadTXTGraph(selectedFile.getAbsolutePath());
+                    lookup = GraphCache.shared().load(selectedFile.getAbsolutePath(), "txt", Graph::loadTXTGraph);
                 }
             }else if(extension.equals("bin")){
                 if(selectedFile.getAbsolutePath().contains("own_c") || selectedFile.getAbsolutePath().contains("own_java")){
-                    graf = Graph.loadCGraphBIN(selectedFile.getAbsolutePath());
+                    lookup = GraphCache.shared().load(selectedFile.getAbsolutePath(), "cgraph-bin", Graph::loadCGraphBIN);
                 }
+            }else if(extension.equals("gsnap")){
+                lookup = GraphCache.shared().load(selectedFile.getAbsolutePath(), "gsnap", path -> Graph.loadSnapshot(path, true));
             } else {
                 showCenteredMessage(
                         "Nieobsługiwane rozszerzenie pliku: " + extension + "\n" +
-                                "Obsługiwane rozszerzenia: .txt, .csrrg",
+                                "Obsługiwane rozszerzenia: .txt, .csrrg, .bin, .gsnap",
                         "Błąd",
                         JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            if (graf == null || graf.getWierzcholki() == null || graf.getWierzcholki().isEmpty()) {
+            Graph graf = lookup == null ? null : lookup.getGraph();
+            if (graf == null || graf.getVertexCount() == 0) {
                 showCenteredMessage(
                         "Nie udało się wczytać grafu z pliku!",
                         "Błąd",
@@ -84,9 +90,14 @@ public class GraphVisualizerPanel extends JPanel {
                 return;
             }
 
-            parent.updateVisualizationPanel(new GraphPanel(graf.getWierzcholki(), parent));
+            cacheLabel.setText((lookup.isHit() ? "Cache hit. " : "Cache miss. ") + GraphCache.shared().describe());
+            parent.updateVisualizationPanel(new GraphPanel(graf, parent));
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            //uszkodzony lub niepelny plik - komunikat zamiast wyjatku w EDT
+            showCenteredMessage(
+                    "Nie udało się wczytać grafu z pliku!\n" + e.getMessage(),
+                    "Błąd",
+                    JOptionPane.ERROR_MESSAGE);
         }
     }
 
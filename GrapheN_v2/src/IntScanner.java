@@ -0,0 +1,87 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// strumieniowy odczyt liczb calkowitych prosto z bajtow pliku (bez tworzenia obiektow String)
+public class IntScanner implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    public IntScanner(String filePath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+    }
+
+    // zwraca kolejny bajt lub -1 na koncu pliku
+    private int nextByte() throws IOException {
+        if (position == limit) {
+            if (eof) return -1;
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            if (read < 0) {
+                eof = true;
+                return -1;
+            }
+            position = 0;
+            limit = read;
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    // wczytuje wszystkie liczby z biezacej linii (dowolne separatory, np. ';'), false gdy koniec pliku
+    public boolean readLine(IntList out) throws IOException {
+        int b = nextByte();
+        if (b < 0) return false;
+
+        long value = 0;
+        boolean inNumber = false;
+        boolean negative = false;
+        while (b >= 0 && b != '\n') {
+            if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                //liczba spoza zakresu int - blad zamiast przekrecenia wartosci
+                if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                    throw new IOException("Liczba poza zakresem int w pliku");
+                }
+                inNumber = true;
+            } else {
+                if (inNumber) {
+                    out.add((int) (negative ? -value : value));
+                    value = 0;
+                    inNumber = false;
+                }
+                negative = b == '-';
+            }
+            b = nextByte();
+        }
+        if (inNumber) {
+            out.add((int) (negative ? -value : value));
+        }
+        return true;
+    }
+
+    public boolean skipLine() throws IOException {
+        int b = nextByte();
+        if (b < 0) return false;
+        while (b >= 0 && b != '\n') {
+            b = nextByte();
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,77 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// odczyt liczb int (little-endian) z pliku mapowanego w pamieci
+// plik mapowany jest oknami, wiec obsluguje tez pliki wieksze niz 2 GB
+// pliki mniejsze niz MappedTextFile.MAP_THRESHOLD czytane sa w calosci przez kanal - mapowanie zwalnia
+// dopiero GC i do tego czasu plik moze byc zablokowany (Windows); close() porzuca referencje do okna
+public class MappedIntReader implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private long windowStart;
+    private IntBuffer window;
+
+    public MappedIntReader(String filePath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        mapWindow(0);
+    }
+
+    private void mapWindow(long start) throws IOException {
+        long length = Math.min(WINDOW_SIZE, fileSize - start);
+        windowStart = start;
+        ByteBuffer bytes;
+        if (fileSize >= MappedTextFile.MAP_THRESHOLD) {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } else {
+            bytes = ByteBuffer.allocate((int) length);
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, start + bytes.position()) <= 0) throw new EOFException();
+            }
+            bytes.flip();
+        }
+        window = bytes.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    // przejscie do nastepnego okna, gdy biezace sie skonczylo
+    private void ensureAvailable() throws IOException {
+        if (!window.hasRemaining()) {
+            long next = windowStart + (long) window.limit() * Integer.BYTES;
+            if (fileSize - next < Integer.BYTES) {
+                throw new EOFException();
+            }
+            mapWindow(next);
+        }
+    }
+
+    public int readInt() throws IOException {
+        ensureAvailable();
+        return window.get();
+    }
+
+    // hurtowy odczyt len liczb do tablicy, rowniez przez granice okien
+    public void read(int[] dst, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureAvailable();
+            int chunk = Math.min(length, window.remaining());
+            window.get(dst, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
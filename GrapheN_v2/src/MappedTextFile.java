@@ -0,0 +1,129 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+
+// plik tekstowy czytany bajtami: krotkie linie naglowka odczytywane wprost, a reszta dzielona
+// na fragmenty zaczynajace sie na poczatku linii, mapowane w pamieci i przetwarzane rownolegle
+// kazdy fragment mapowany jest osobno, wiec plik moze byc wiekszy niz 2 GB
+// male pliki nie sa mapowane, tylko czytane przez kanal: mapowania zwalnia dopiero GC, a do tego czasu
+// (np. w Windows) plik pozostaje zablokowany i nie mozna go nadpisac; duze pliki maja to ograniczenie
+public class MappedTextFile implements Closeable {
+    private static final int SCAN_BLOCK = 1 << 16;
+    // pliki mniejsze niz prog czytane do pamieci sterty zamiast mapowania
+    static final long MAP_THRESHOLD = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+
+    public interface ChunkTask {
+        void run(int chunk) throws IOException;
+    }
+
+    public MappedTextFile(String filePath) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // pozycja za najblizszym '\n' od pos wlacznie (size, gdy to ostatnia linia)
+    public long nextLine(long pos) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        while (pos < size) {
+            block.clear();
+            int read = channel.read(block, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (block.get(i) == '\n') return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    // pierwszy znak linii od pos inny niz bialy (kod bajtu); -1 dla pustej linii i konca pliku
+    public int firstNonBlank(long pos) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        while (pos < size) {
+            block.clear();
+            int read = channel.read(block, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                int b = block.get(i) & 0xFF;
+                if (b == '\n') return -1;
+                if (b > ' ') return b;
+            }
+            pos += read;
+        }
+        return -1;
+    }
+
+    // linia zaczynajaca sie w pos, bez znakow konca linii; null na koncu pliku
+    public String readLine(long pos) throws IOException {
+        if (pos >= size) return null;
+        long end = nextLine(pos);
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - pos));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, pos + bytes.position()) <= 0) break;
+        }
+        int length = bytes.position();
+        while (length > 0 && (bytes.get(length - 1) == '\n' || bytes.get(length - 1) == '\r')) length--;
+        return new String(bytes.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    // granice fragmentow [bounds[i], bounds[i + 1]) o rozmiarze okolo chunkBytes; kazdy zaczyna sie na poczatku linii
+    public long[] splitLines(long from, long to, long chunkBytes) throws IOException {
+        int chunks = (int) Math.max(1, (to - from + chunkBytes - 1) / chunkBytes);
+        long[] bounds = new long[chunks + 1];
+        bounds[0] = from;
+        for (int i = 1; i < chunks; i++) {
+            //linia zaczyna sie za znakiem '\n', wiec szukanie od bajtu przed nominalna granica
+            long start = nextLine(from + i * chunkBytes - 1);
+            bounds[i] = Math.max(bounds[i - 1], Math.min(to, start));
+        }
+        bounds[chunks] = to;
+        return bounds;
+    }
+
+    // bajty [from, to) - zmapowane dla duzych plikow, przeczytane przez kanal dla malych
+    // zwrocony bufor nie jest nigdzie przechowywany, wiec mapowanie mozna zwolnic zaraz po jego uzyciu
+    public ByteBuffer bytes(long from, long to) throws IOException {
+        if (size >= MAP_THRESHOLD) return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        ByteBuffer bytes = ByteBuffer.allocate((int) (to - from));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, from + bytes.position()) <= 0) throw new EOFException();
+        }
+        return bytes.flip();
+    }
+
+    // task dla kazdego fragmentu, rownolegle na wspolnej puli; pierwszy blad wejscia-wyjscia jest rzucany dalej
+    public static void forEachChunk(int chunks, ChunkTask task) throws IOException {
+        try {
+            ParallelLoops.forRange(ForkJoinPool.commonPool(), chunks, 1, (from, to) -> {
+                for (int c = from; c < to; c++) {
+                    try {
+                        task.run(c);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
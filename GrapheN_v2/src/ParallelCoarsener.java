@@ -0,0 +1,196 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+// rownolegle redukowanie grafu na ForkJoinPool (pool == null - w biezacym watku)
+// dopasowanie przez wzajemne propozycje: v proponuje najlepiej oceniona krawedz do wolnego sasiada,
+// para powstaje gdy obie strony wybraly siebie nawzajem - wynik zalezy tylko od ziarna, nie od liczby watkow
+public final class ParallelCoarsener {
+    private static final int MAX_MATCHING_ROUNDS = 8;
+    private static final int PREFIX_BLOCK = 1 << 14;
+
+    private ParallelCoarsener() {
+    }
+
+    // fineToCoarse[v] = id superwierzcholka zawierajacego v
+    public static Graph coarsen(ForkJoinPool pool, Graph graph, int[] fineToCoarse, long maxVertexWeight, long seed) {
+        int n = graph.getVertexCount();
+        int[] mate = new int[n];
+        int[] proposal = new int[n];
+        Arrays.fill(mate, -1);
+
+        for (int round = 0; round < MAX_MATCHING_ROUNDS; round++) {
+            ParallelLoops.forRange(pool, n, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    proposal[v] = mate[v] == -1 ? propose(graph, mate, v, maxVertexWeight, seed) : -1;
+                }
+            });
+            LongAdder matched = new LongAdder();
+            //pare zapisuje tylko mniejszy wierzcholek, wiec watki nie pisza w te same miejsca
+            ParallelLoops.forRange(pool, n, (from, to) -> {
+                int count = 0;
+                for (int v = from; v < to; v++) {
+                    int u = proposal[v];
+                    if (u > v && proposal[u] == v) {
+                        mate[v] = u;
+                        mate[u] = v;
+                        count++;
+                    }
+                }
+                matched.add(count);
+            });
+            if (matched.sum() == 0) break;
+        }
+
+        //numeracja superwierzcholkow: sumy prefiksowe po blokach, w kolejnosci id wierzcholkow
+        int blocks = (n + PREFIX_BLOCK - 1) / PREFIX_BLOCK;
+        int[] blockStart = new int[blocks + 1];
+        ParallelLoops.forRange(pool, blocks, 1, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                int count = 0;
+                for (int v = b * PREFIX_BLOCK; v < Math.min(n, (b + 1) * PREFIX_BLOCK); v++) {
+                    if (isLeader(mate, v)) count++;
+                }
+                blockStart[b + 1] = count;
+            }
+        });
+        for (int b = 0; b < blocks; b++) {
+            blockStart[b + 1] += blockStart[b];
+        }
+        int coarseCount = blockStart[blocks];
+        int[] leaderOf = new int[coarseCount];
+        ParallelLoops.forRange(pool, blocks, 1, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                int id = blockStart[b];
+                for (int v = b * PREFIX_BLOCK; v < Math.min(n, (b + 1) * PREFIX_BLOCK); v++) {
+                    if (isLeader(mate, v)) {
+                        leaderOf[id] = v;
+                        fineToCoarse[v] = id;
+                        if (mate[v] != -1) fineToCoarse[mate[v]] = id;
+                        id++;
+                    }
+                }
+            }
+        });
+
+        //wagi i polozenie superwierzcholkow
+        int[] xs = new int[coarseCount];
+        int[] ys = new int[coarseCount];
+        int[] weights = new int[coarseCount];
+        ParallelLoops.forRange(pool, coarseCount, (from, to) -> {
+            for (int c = from; c < to; c++) {
+                int v = leaderOf[c];
+                int u = mate[v];
+                int wv = graph.getVertexWeight(v);
+                if (u == -1) {
+                    xs[c] = graph.getX(v);
+                    ys[c] = graph.getY(v);
+                    weights[c] = wv;
+                } else {
+                    int wu = graph.getVertexWeight(u);
+                    xs[c] = (int) (((long) graph.getX(v) * wv + (long) graph.getX(u) * wu) / (wv + wu));
+                    ys[c] = (int) (((long) graph.getY(v) * wv + (long) graph.getY(u) * wu) / (wv + wu));
+                    weights[c] = wv + wu;
+                }
+            }
+        });
+
+        //sciagniete krawedzie: najpierw stopnie, potem zapis do CSR pod wyliczone przesuniecia
+        int[] offsets = new int[coarseCount + 1];
+        ParallelLoops.forRange(pool, coarseCount, (from, to) -> {
+            long[] scratch = new long[16];
+            for (int c = from; c < to; c++) {
+                scratch = ensureScratch(graph, mate, leaderOf[c], scratch);
+                offsets[c + 1] = gatherNeighbors(graph, mate, fineToCoarse, c, leaderOf[c], scratch);
+            }
+        });
+        for (int c = 0; c < coarseCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] adjacency = new int[offsets[coarseCount]];
+        int[] edgeWeights = new int[offsets[coarseCount]];
+        ParallelLoops.forRange(pool, coarseCount, (from, to) -> {
+            long[] scratch = new long[16];
+            for (int c = from; c < to; c++) {
+                scratch = ensureScratch(graph, mate, leaderOf[c], scratch);
+                int count = gatherNeighbors(graph, mate, fineToCoarse, c, leaderOf[c], scratch);
+                int base = offsets[c];
+                for (int i = 0; i < count; i++) {
+                    adjacency[base + i] = (int) (scratch[i] >>> 32);
+                    edgeWeights[base + i] = (int) scratch[i];
+                }
+            }
+        });
+
+        return new Graph(offsets, adjacency, xs, ys, new int[coarseCount], weights, edgeWeights);
+    }
+
+    private static boolean isLeader(int[] mate, int v) {
+        return mate[v] == -1 || v < mate[v];
+    }
+
+    // najlepiej oceniona krawedz do wolnego sasiada, remisy rozstrzyga skrot zalezny od ziarna
+    private static int propose(Graph graph, int[] mate, int v, long maxVertexWeight, long seed) {
+        int best = -1;
+        double bestRating = 0;
+        long bestPriority = 0;
+        int wv = graph.getVertexWeight(v);
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            int u = graph.neighborAt(e);
+            if (u == v || mate[u] != -1) continue;
+            int wu = graph.getVertexWeight(u);
+            if ((long) wv + wu > maxVertexWeight) continue;
+            //waga krawedzi wzgledem wagi pary - sama waga laczy w kolko te same ciezkie superwierzcholki,
+            //ktore szybko dochodza do limitu wagi i zostawiaja lekkich sasiadow bez pary
+            double rating = graph.edgeWeightAt(e) / ((double) wv + wu);
+            long priority = edgePriority(Math.min(u, v), Math.max(u, v), seed);
+            if (best == -1 || rating > bestRating || (rating == bestRating && priority > bestPriority)) {
+                best = u;
+                bestRating = rating;
+                bestPriority = priority;
+            }
+        }
+        return best;
+    }
+
+    // ten sam skrot dla obu koncow krawedzi, dzieki temu propozycje czesto sa wzajemne
+    private static long edgePriority(int a, int b, long seed) {
+        long h = seed ^ (((long) a << 32) | (b & 0xFFFFFFFFL));
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long[] ensureScratch(Graph graph, int[] mate, int leader, long[] scratch) {
+        int needed = graph.degree(leader) + (mate[leader] == -1 ? 0 : graph.degree(mate[leader]));
+        return needed <= scratch.length ? scratch : new long[Math.max(needed, scratch.length * 2)];
+    }
+
+    // sasiedzi superwierzcholka c jako (id << 32 | waga), posortowani i ze zsumowanymi wagami
+    private static int gatherNeighbors(Graph graph, int[] mate, int[] fineToCoarse, int c, int leader, long[] scratch) {
+        int count = 0;
+        int v = leader;
+        for (int part = 0; part < 2 && v != -1; part++) {
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                int target = fineToCoarse[graph.neighborAt(e)];
+                if (target != c) {
+                    scratch[count++] = ((long) target << 32) | graph.edgeWeightAt(e);
+                }
+            }
+            v = mate[leader];
+        }
+        Arrays.sort(scratch, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique > 0 && (scratch[unique - 1] >>> 32) == (scratch[i] >>> 32)) {
+                scratch[unique - 1] += (int) scratch[i];
+            } else {
+                scratch[unique++] = scratch[i];
+            }
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// petla for dzielona na zakresy i wykonywana na ForkJoinPool; pool == null - cala petla w biezacym watku
+public final class ParallelLoops {
+    private static final int MIN_CHUNK = 1024;
+
+    public interface RangeBody {
+        void run(int from, int to);
+    }
+
+    private ParallelLoops() {
+    }
+
+    public static void forRange(ForkJoinPool pool, int n, RangeBody body) {
+        int parallelism = pool == null ? 1 : pool.getParallelism();
+        forRange(pool, n, Math.max(MIN_CHUNK, n / (parallelism * 8) + 1), body);
+    }
+
+    // chunk = najmniejszy zakres wykonywany przez jedno zadanie
+    public static void forRange(ForkJoinPool pool, int n, int chunk, RangeBody body) {
+        if (n <= 0) return;
+        if (pool == null || n <= chunk) {
+            body.run(0, n);
+            return;
+        }
+        pool.invoke(new RangeTask(body, 0, n, chunk));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeBody body;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        RangeTask(RangeBody body, int from, int to, int chunk) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, mid, chunk), new RangeTask(body, mid, to, chunk));
+        }
+    }
+}
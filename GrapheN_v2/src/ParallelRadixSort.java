@@ -0,0 +1,88 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// stabilne sortowanie pozycyjne (LSD) kluczy long z opcjonalna tablica towarzyszaca
+// w kazdym przebiegu tablica dzielona jest na bloki: histogramy i rozrzucanie liczone rownolegle,
+// a pozycje startowe (cyfra, blok) z jednej sumy prefiksowej, wiec wynik nie zalezy od liczby watkow
+public final class ParallelRadixSort {
+    private static final int MAX_DIGIT_BITS = 11;
+    // mniejsze bloki nie oplacaja sie rownolegle
+    private static final int MIN_BLOCK = 1 << 16;
+
+    private interface BlockBody {
+        void run(int block, int from, int to);
+    }
+
+    private ParallelRadixSort() {
+    }
+
+    // sortuje keys[0, n) rosnaco wg bitow [0, bits); payload (moze byc null) przestawiany razem z kluczami
+    // pool == null - sortowanie w biezacym watku
+    public static void sort(ForkJoinPool pool, long[] keys, int[] payload, int n, int bits) {
+        if (n < 2 || bits <= 0) return;
+        int passes = (bits + MAX_DIGIT_BITS - 1) / MAX_DIGIT_BITS;
+        int digitBits = (bits + passes - 1) / passes;
+        int radix = 1 << digitBits;
+        int blocks = pool == null ? 1 : Math.max(1, Math.min(n / MIN_BLOCK, pool.getParallelism() * 4));
+        int blockSize = (n + blocks - 1) / blocks;
+        int[][] counts = new int[blocks][radix];
+
+        long[] src = keys, dst = new long[n];
+        int[] srcPayload = payload, dstPayload = payload == null ? null : new int[n];
+        for (int shift = 0; shift < bits; shift += digitBits) {
+            int s = shift;
+            //ostatnia cyfra moze byc krotsza - bity od bits w gore nie moga wplywac na kolejnosc
+            long mask = (1L << Math.min(digitBits, bits - shift)) - 1;
+            long[] from = src, to = dst;
+            int[] fromPayload = srcPayload, toPayload = dstPayload;
+
+            forEachBlock(pool, blocks, blockSize, n, (b, lo, hi) -> {
+                int[] count = counts[b];
+                Arrays.fill(count, 0);
+                for (int i = lo; i < hi; i++) count[(int) ((from[i] >>> s) & mask)]++;
+            });
+
+            //pozycja startowa cyfry d w bloku b: wszystkie mniejsze cyfry + ta cyfra we wczesniejszych blokach
+            int sum = 0;
+            boolean sorted = false;
+            for (int d = 0; d < radix; d++) {
+                int digitStart = sum;
+                for (int b = 0; b < blocks; b++) {
+                    int c = counts[b][d];
+                    counts[b][d] = sum;
+                    sum += c;
+                }
+                //wszystkie klucze maja te sama cyfre - przebieg nic by nie zmienil
+                if (sum - digitStart == n) sorted = true;
+            }
+            if (sorted) continue;
+
+            forEachBlock(pool, blocks, blockSize, n, (b, lo, hi) -> {
+                int[] next = counts[b];
+                for (int i = lo; i < hi; i++) {
+                    int slot = next[(int) ((from[i] >>> s) & mask)]++;
+                    to[slot] = from[i];
+                    if (toPayload != null) toPayload[slot] = fromPayload[i];
+                }
+            });
+            src = to;
+            dst = from;
+            srcPayload = toPayload;
+            dstPayload = fromPayload;
+        }
+        if (src != keys) {
+            System.arraycopy(src, 0, keys, 0, n);
+            if (payload != null) System.arraycopy(srcPayload, 0, payload, 0, n);
+        }
+    }
+
+    private static void forEachBlock(ForkJoinPool pool, int blocks, int blockSize, int n, BlockBody body) {
+        if (pool == null || blocks == 1) {
+            for (int b = 0; b < blocks; b++) body.run(b, b * blockSize, Math.min(n, (b + 1) * blockSize));
+            return;
+        }
+        ParallelLoops.forRange(pool, blocks, 1, (from, to) -> {
+            for (int b = from; b < to; b++) body.run(b, b * blockSize, Math.min(n, (b + 1) * blockSize));
+        });
+    }
+}
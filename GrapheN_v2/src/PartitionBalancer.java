@@ -0,0 +1,214 @@
+// wyrownywanie rozmiarow partycji przez przenoszenie wierzcholkow brzegowych
+// rozmiary partycji i zbiory brzegowe kazdej partycji sa aktualizowane przyrostowo,
+// ruchy wybierane sa z kolejki kubelkowej wg najmniejszego wzrostu przeciecia,
+// kazdy wierzcholek moze zostac przeniesiony najwyzej raz, wiec petla zawsze sie konczy
+public class PartitionBalancer {
+    private final Graph graph;
+    private final int[] partition;
+    private final int parts;
+    private final long maxSize;
+    private final long minSize;
+    private final long[] partWeights;
+    private int violations;
+
+    // zbiory wierzcholkow brzegowych osobno dla kazdej partycji
+    private final IntList[] boundaryOf;
+    private final int[] boundaryIndex;
+    private final int[] boundaryOwner;
+
+    private final int[] moveTarget;
+    private final int[] moveGain;
+    private final boolean[] locked;
+    private final int[] connection;
+    private final int[] touched;
+    private final GainBuckets queue;
+    private int moves;
+
+    public PartitionBalancer(Graph graph, int[] partition, int parts, long minSize, long maxSize) {
+        this.graph = graph;
+        this.partition = partition;
+        this.parts = parts;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        int n = graph.getVertexCount();
+
+        partWeights = new long[parts];
+        for (int v = 0; v < n; v++) {
+            partWeights[partition[v]] += graph.getVertexWeight(v);
+        }
+        for (int p = 0; p < parts; p++) {
+            if (violates(p)) violations++;
+        }
+
+        boundaryOf = new IntList[parts];
+        for (int p = 0; p < parts; p++) boundaryOf[p] = new IntList();
+        boundaryIndex = new int[n];
+        boundaryOwner = new int[n];
+        int maxGain = 1;
+        for (int v = 0; v < n; v++) {
+            boundaryIndex[v] = -1;
+            int degree = 0;
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                degree += graph.edgeWeightAt(e);
+            }
+            maxGain = Math.max(maxGain, degree);
+        }
+        if (violations > 0) {
+            for (int v = 0; v < n; v++) refreshBoundary(v);
+        }
+
+        moveTarget = new int[n];
+        moveGain = new int[n];
+        locked = new boolean[n];
+        connection = new int[parts];
+        touched = new int[parts];
+        queue = new GainBuckets(n, maxGain);
+    }
+
+    // true gdy udalo sie spelnic ograniczenie rozmiarow
+    public boolean balance() {
+        int movesAtLastRebuild = -1;
+        while (violations > 0) {
+            if (queue.isEmpty()) {
+                //brak kandydatow - ponowne zebranie, ale tylko jesli od ostatniego razu cos sie zmienilo
+                if (movesAtLastRebuild == moves) break;
+                movesAtLastRebuild = moves;
+                collectCandidates();
+                if (queue.isEmpty()) break;
+            }
+
+            int v = queue.peekMax();
+            queue.remove(v);
+            //rozmiary mogly sie zmienic od wstawienia - ruch jest sprawdzany ponownie
+            if (locked[v] || !evaluate(v)) continue;
+            move(v, moveTarget[v]);
+        }
+        return violations == 0;
+    }
+
+    public int getMoveCount() {
+        return moves;
+    }
+
+    private boolean violates(int p) {
+        return partWeights[p] > maxSize || partWeights[p] < minSize;
+    }
+
+    // kandydaci: brzeg przepelnionych partycji i sasiedzi zbyt malych partycji
+    private void collectCandidates() {
+        for (int p = 0; p < parts; p++) {
+            IntList boundary = boundaryOf[p];
+            if (partWeights[p] > maxSize) {
+                for (int i = 0; i < boundary.size(); i++) {
+                    offer(boundary.get(i));
+                }
+            } else if (partWeights[p] < minSize) {
+                for (int i = 0; i < boundary.size(); i++) {
+                    int v = boundary.get(i);
+                    for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                        offer(graph.neighborAt(e));
+                    }
+                }
+            }
+        }
+    }
+
+    private void offer(int v) {
+        if (locked[v]) return;
+        if (evaluate(v)) {
+            queue.update(v, moveGain[v]);
+        } else {
+            queue.remove(v);
+        }
+    }
+
+    private void move(int v, int to) {
+        int from = partition[v];
+        int weight = graph.getVertexWeight(v);
+        boolean fromViolated = violates(from);
+        boolean toViolated = violates(to);
+        partition[v] = to;
+        partWeights[from] -= weight;
+        partWeights[to] += weight;
+        violations += (violates(from) ? 1 : 0) - (fromViolated ? 1 : 0);
+        violations += (violates(to) ? 1 : 0) - (toViolated ? 1 : 0);
+        locked[v] = true;
+        moves++;
+
+        refreshBoundary(v);
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            int u = graph.neighborAt(e);
+            refreshBoundary(u);
+            if (boundaryIndex[u] != -1 || queue.contains(u)) offer(u);
+        }
+    }
+
+    // najlepszy dopuszczalny ruch poprawiajacy balans; false gdy takiego nie ma
+    private boolean evaluate(int v) {
+        int own = partition[v];
+        int weight = graph.getVertexWeight(v);
+        boolean sourceTooBig = partWeights[own] > maxSize;
+        boolean sourceCanShrink = partWeights[own] - weight >= minSize;
+        int internal = 0;
+        int touchedCount = 0;
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            int p = partition[graph.neighborAt(e)];
+            int w = graph.edgeWeightAt(e);
+            if (p == own) {
+                internal += w;
+            } else {
+                if (connection[p] == 0) touched[touchedCount++] = p;
+                connection[p] += w;
+            }
+        }
+
+        int best = -1;
+        for (int i = 0; i < touchedCount; i++) {
+            int p = touched[i];
+            if (partWeights[p] + weight > maxSize) continue;
+            boolean useful = sourceTooBig || (partWeights[p] < minSize && sourceCanShrink);
+            if (!useful) continue;
+            //najmniejszy wzrost przeciecia, przy remisie lzejsza partycja
+            if (best == -1 || connection[p] > connection[best]
+                    || (connection[p] == connection[best] && partWeights[p] < partWeights[best])) {
+                best = p;
+            }
+        }
+        if (best != -1) {
+            moveTarget[v] = best;
+            moveGain[v] = connection[best] - internal;
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            connection[touched[i]] = 0;
+        }
+        return best != -1;
+    }
+
+    private void refreshBoundary(int v) {
+        boolean isBoundary = false;
+        int own = partition[v];
+        for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+            if (partition[graph.neighborAt(e)] != own) {
+                isBoundary = true;
+                break;
+            }
+        }
+        int index = boundaryIndex[v];
+        if (index != -1) {
+            //wierzcholek mogl zmienic partycje - usuniecie ze starego zbioru
+            IntList old = boundaryOf[boundaryOwner[v]];
+            if (!isBoundary || boundaryOwner[v] != own) {
+                int last = old.get(old.size() - 1);
+                old.set(index, last);
+                boundaryIndex[last] = index;
+                old.removeLast();
+                boundaryIndex[v] = -1;
+            }
+        }
+        if (isBoundary && boundaryIndex[v] == -1) {
+            boundaryOwner[v] = own;
+            boundaryIndex[v] = boundaryOf[own].size();
+            boundaryOf[own].add(v);
+        }
+    }
+}
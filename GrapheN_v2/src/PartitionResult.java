@@ -0,0 +1,211 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+// wynik podzialu: przypisanie wierzcholkow, miary jakosci i czasy poszczegolnych faz
+public class PartitionResult {
+    private final int[] partition;
+    private final int parts;
+    private final boolean balanced;
+
+    private final long edgeCut;
+    private final long maxPartSize;
+    private final long minPartSize;
+    private final double imbalance;
+    private final int boundaryVertices;
+    private final long communicationVolume;
+
+    private final PhaseTimer timer;
+    private final long totalNanos;
+
+    private PartitionResult(int[] partition, int parts, boolean balanced, Metrics metrics, double imbalance,
+                            PhaseTimer timer, long totalNanos) {
+        this.partition = partition;
+        this.parts = parts;
+        this.balanced = balanced;
+        this.edgeCut = metrics.cut / 2;
+        this.maxPartSize = metrics.maxSize;
+        this.minPartSize = metrics.minSize;
+        this.imbalance = imbalance;
+        this.boundaryVertices = metrics.boundary;
+        this.communicationVolume = metrics.volume;
+        this.timer = timer;
+        this.totalNanos = totalNanos;
+    }
+
+    // miary liczone jednym przejsciem po grafie (symetrycznym); pool == null - jednowatkowo
+    static PartitionResult compute(ForkJoinPool pool, Graph graph, int[] partition, int parts, boolean balanced,
+                                   PhaseTimer timer, long totalNanos) {
+        int n = graph.getVertexCount();
+        int blocks = pool == null ? 1 : Math.max(1, Math.min(n / 4096, pool.getParallelism() * 4));
+        Metrics[] partial = new Metrics[blocks];
+        if (pool == null) {
+            partial[0] = measure(graph, partition, parts, 0, n);
+        } else {
+            ParallelLoops.forRange(pool, blocks, 1, (from, to) -> {
+                for (int b = from; b < to; b++) {
+                    partial[b] = measure(graph, partition, parts, (int) ((long) n * b / blocks), (int) ((long) n * (b + 1) / blocks));
+                }
+            });
+        }
+
+        Metrics total = partial[0];
+        for (int b = 1; b < blocks; b++) {
+            total.cut += partial[b].cut;
+            total.boundary += partial[b].boundary;
+            total.volume += partial[b].volume;
+            for (int p = 0; p < parts; p++) total.sizes[p] += partial[b].sizes[p];
+        }
+        total.maxSize = Long.MIN_VALUE;
+        total.minSize = Long.MAX_VALUE;
+        for (long size : total.sizes) {
+            total.maxSize = Math.max(total.maxSize, size);
+            total.minSize = Math.min(total.minSize, size);
+        }
+        double average = (double) graph.getTotalVertexWeight() / parts;
+        double imbalance = average > 0 ? total.maxSize / average : 1.0;
+        return new PartitionResult(partition, parts, balanced, total, imbalance, timer, totalNanos);
+    }
+
+    private static final class Metrics {
+        final long[] sizes;
+        long cut;
+        int boundary;
+        long volume;
+        long maxSize;
+        long minSize;
+
+        Metrics(int parts) {
+            sizes = new long[parts];
+        }
+    }
+
+    private static Metrics measure(Graph graph, int[] partition, int parts, int from, int to) {
+        Metrics metrics = new Metrics(parts);
+        //znacznik: ostatni wierzcholek, dla ktorego partycja zostala juz policzona
+        int[] seen = new int[parts];
+        Arrays.fill(seen, -1);
+        for (int v = from; v < to; v++) {
+            int own = partition[v];
+            metrics.sizes[own] += graph.getVertexWeight(v);
+            int foreignParts = 0;
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                int p = partition[graph.neighborAt(e)];
+                if (p == own) continue;
+                metrics.cut += graph.edgeWeightAt(e);
+                if (seen[p] != v) {
+                    seen[p] = v;
+                    foreignParts++;
+                }
+            }
+            if (foreignParts > 0) metrics.boundary++;
+            //wolumen komunikacji: liczba obcych partycji, do ktorych trzeba wyslac wierzcholek
+            metrics.volume += (long) foreignParts * graph.getVertexWeight(v);
+        }
+        return metrics;
+    }
+
+    public int[] getPartition() {
+        return partition;
+    }
+
+    public int getParts() {
+        return parts;
+    }
+
+    // false gdy podzial nie spelnia ograniczenia rozmiarow partycji
+    public boolean isBalanced() {
+        return balanced;
+    }
+
+    public long getEdgeCut() {
+        return edgeCut;
+    }
+
+    public long getMaxPartSize() {
+        return maxPartSize;
+    }
+
+    public long getMinPartSize() {
+        return minPartSize;
+    }
+
+    // najwieksza partycja / srednia wielkosc partycji
+    public double getImbalance() {
+        return imbalance;
+    }
+
+    public int getBoundaryVertices() {
+        return boundaryVertices;
+    }
+
+    public long getCommunicationVolume() {
+        return communicationVolume;
+    }
+
+    public long getPhaseNanos(int phase) {
+        return timer.getNanos(phase);
+    }
+
+    public long getPhaseAllocatedBytes(int phase) {
+        return timer.getAllocatedBytes(phase);
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // krotkie podsumowanie do okna dialogowego
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Edge cut: %d%n", edgeCut));
+        sb.append(String.format(Locale.ROOT, "Part sizes: %d - %d (imbalance %.3f)%n", minPartSize, maxPartSize, imbalance));
+        sb.append(String.format(Locale.ROOT, "Boundary vertices: %d%n", boundaryVertices));
+        sb.append(String.format(Locale.ROOT, "Communication volume: %d%n", communicationVolume));
+        sb.append(String.format(Locale.ROOT, "Time: %.1f ms (", totalNanos / 1e6));
+        for (int i = 0; i < PhaseTimer.PHASES.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format(Locale.ROOT, "%s %.1f", PhaseTimer.PHASES[i], timer.getNanos(i) / 1e6));
+        }
+        sb.append(')');
+        return sb.toString();
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"vertices\": ").append(partition.length).append(",\n");
+        sb.append("  \"parts\": ").append(parts).append(",\n");
+        sb.append("  \"balanced\": ").append(balanced).append(",\n");
+        sb.append("  \"edgeCut\": ").append(edgeCut).append(",\n");
+        sb.append("  \"maxPartSize\": ").append(maxPartSize).append(",\n");
+        sb.append("  \"minPartSize\": ").append(minPartSize).append(",\n");
+        sb.append("  \"imbalance\": ").append(String.format(Locale.ROOT, "%.6f", imbalance)).append(",\n");
+        sb.append("  \"boundaryVertices\": ").append(boundaryVertices).append(",\n");
+        sb.append("  \"communicationVolume\": ").append(communicationVolume).append(",\n");
+        sb.append("  \"totalNanos\": ").append(totalNanos).append(",\n");
+        sb.append("  \"phases\": {\n");
+        for (int i = 0; i < PhaseTimer.PHASES.length; i++) {
+            sb.append("    \"").append(PhaseTimer.PHASES[i]).append("\": {\"nanos\": ").append(timer.getNanos(i))
+                    .append(", \"allocatedBytes\": ").append(timer.getAllocatedBytes(i)).append('}');
+            sb.append(i < PhaseTimer.PHASES.length - 1 ? ",\n" : "\n");
+        }
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    // plik z raportem obok pliku wynikowego: nazwa bez rozszerzenia + "_report.json"
+    public String writeReport(String outputPath) throws IOException {
+        int dot = outputPath.lastIndexOf('.');
+        int slash = Math.max(outputPath.lastIndexOf('/'), outputPath.lastIndexOf('\\'));
+        String base = dot > slash ? outputPath.substring(0, dot) : outputPath;
+        String reportPath = base + "_report.json";
+        Files.write(Paths.get(reportPath), toJson().getBytes(StandardCharsets.UTF_8));
+        return reportPath;
+    }
+}
@@ -0,0 +1,56 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// pomiar czasu i zaalokowanej pamieci kolejnych faz podzialu
+// alokacje liczone sa tylko dla biezacego watku (bez zadan wykonywanych na ForkJoinPool)
+public class PhaseTimer {
+    public static final String[] PHASES = {"coarsen", "initial", "uncoarsen", "connectivity", "balance"};
+    public static final int COARSEN = 0;
+    public static final int INITIAL = 1;
+    public static final int UNCOARSEN = 2;
+    public static final int CONNECTIVITY = 3;
+    public static final int BALANCE = 4;
+
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private long startNanos;
+    private long startBytes;
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+            if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations;
+            }
+        }
+        return null;
+    }
+
+    private static long allocatedNow() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    public void start() {
+        startBytes = allocatedNow();
+        startNanos = System.nanoTime();
+    }
+
+    // zamyka faze rozpoczeta przez start(); kolejne wywolania dla tej samej fazy sa sumowane
+    public void stop(int phase) {
+        nanos[phase] += System.nanoTime() - startNanos;
+        long bytes = allocatedNow();
+        allocatedBytes[phase] = bytes < 0 || startBytes < 0 ? -1 : allocatedBytes[phase] + bytes - startBytes;
+    }
+
+    public long getNanos(int phase) {
+        return nanos[phase];
+    }
+
+    // -1 gdy JVM nie udostepnia licznika alokacji
+    public long getAllocatedBytes(int phase) {
+        return allocatedBytes[phase];
+    }
+}
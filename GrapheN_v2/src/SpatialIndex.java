@@ -0,0 +1,139 @@
+// jednorodna siatka kubelkow nad wspolrzednymi wierzcholkow (w jednostkach grafu)
+// wierzcholki kazdej komorki leza obok siebie w jednej tablicy (jak w CSR)
+// krawedzie dluzsze niz bok komorki trzymane sa osobno, zeby zapytanie o obszar
+// moglo znalezc krawedzie krotkie przez ich poczatek w lekko powiekszonym obszarze
+public class SpatialIndex {
+    // srednio tyle wierzcholkow na komorke
+    private static final int VERTICES_PER_CELL = 4;
+
+    private final Graph graph;
+    private final int minX;
+    private final int minY;
+    private final int maxX;
+    private final int maxY;
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int[] cellStart;
+    private final int[] cellVertices;
+
+    private final int[] longFrom;
+    private final int[] longTo;
+
+    public interface VertexVisitor {
+        void visit(int v);
+    }
+
+    public SpatialIndex(Graph graph) {
+        this.graph = graph;
+        int n = graph.getVertexCount();
+        int x0 = Integer.MAX_VALUE, y0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE, y1 = Integer.MIN_VALUE;
+        for (int v = 0; v < n; v++) {
+            x0 = Math.min(x0, graph.getX(v));
+            y0 = Math.min(y0, graph.getY(v));
+            x1 = Math.max(x1, graph.getX(v));
+            y1 = Math.max(y1, graph.getY(v));
+        }
+        if (n == 0) {
+            x0 = y0 = x1 = y1 = 0;
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+
+        double area = ((double) maxX - minX + 1) * ((double) maxY - minY + 1);
+        cellSize = Math.max(1, (int) Math.ceil(Math.sqrt(area * VERTICES_PER_CELL / Math.max(1, n))));
+        cellsX = (int) (((long) maxX - minX) / cellSize + 1);
+        cellsY = (int) (((long) maxY - minY) / cellSize + 1);
+
+        //sortowanie przez zliczanie wierzcholkow wg komorek
+        cellStart = new int[cellsX * cellsY + 1];
+        for (int v = 0; v < n; v++) {
+            cellStart[cellOf(v) + 1]++;
+        }
+        for (int c = 0; c < cellsX * cellsY; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellVertices = new int[n];
+        int[] fill = new int[cellsX * cellsY];
+        for (int v = 0; v < n; v++) {
+            int c = cellOf(v);
+            cellVertices[cellStart[c] + fill[c]++] = v;
+        }
+
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 0; v < n; v++) {
+            for (int e = graph.neighborStart(v); e < graph.neighborEnd(v); e++) {
+                int u = graph.neighborAt(e);
+                if (Math.abs(graph.getX(u) - graph.getX(v)) > cellSize || Math.abs(graph.getY(u) - graph.getY(v)) > cellSize) {
+                    from.add(v);
+                    to.add(u);
+                }
+            }
+        }
+        longFrom = from.toArray();
+        longTo = to.toArray();
+    }
+
+    private int cellOf(int v) {
+        int cx = (graph.getX(v) - minX) / cellSize;
+        int cy = (graph.getY(v) - minY) / cellSize;
+        return cy * cellsX + cx;
+    }
+
+    // odwiedza wierzcholki z komorek przecinajacych prostokat (moga lezec troche poza nim)
+    public void query(double x0, double y0, double x1, double y1, VertexVisitor visitor) {
+        if (x1 < minX || y1 < minY || x0 > maxX || y0 > maxY) return;
+        int cx0 = (int) Math.max(0, Math.floor((x0 - minX) / cellSize));
+        int cy0 = (int) Math.max(0, Math.floor((y0 - minY) / cellSize));
+        int cx1 = (int) Math.min(cellsX - 1, Math.floor((x1 - minX) / cellSize));
+        int cy1 = (int) Math.min(cellsY - 1, Math.floor((y1 - minY) / cellSize));
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int c = cy * cellsX + cx;
+                for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                    visitor.visit(cellVertices[i]);
+                }
+            }
+        }
+    }
+
+    // bok komorki; koniec krotkiej krawedzi lezy najwyzej tyle od jej poczatku
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public boolean isLongEdge(int from, int to) {
+        return Math.abs(graph.getX(to) - graph.getX(from)) > cellSize || Math.abs(graph.getY(to) - graph.getY(from)) > cellSize;
+    }
+
+    public int getLongEdgeCount() {
+        return longFrom.length;
+    }
+
+    public int longEdgeFrom(int i) {
+        return longFrom[i];
+    }
+
+    public int longEdgeTo(int i) {
+        return longTo[i];
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMinY() {
+        return minY;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
+    public int getMaxY() {
+        return maxY;
+    }
+}
@@ -0,0 +1,84 @@
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// LRU kafelkow obrazu z limitem pamieci; klucz to skala i wspolrzedne kafelka
+// bezpieczny dla wielu watkow (kafelki wstawiane sa z watkow renderujacych)
+public class TileCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Key, BufferedImage> tiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+
+    public static final class Key {
+        final long scaleBits;
+        final int tileX;
+        final int tileY;
+
+        public Key(double scale, int tileX, int tileY) {
+            this.scaleBits = Double.doubleToLongBits(scale);
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        public double getScale() {
+            return Double.longBitsToDouble(scaleBits);
+        }
+
+        public int getTileX() {
+            return tileX;
+        }
+
+        public int getTileY() {
+            return tileY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return scaleBits == other.scaleBits && tileX == other.tileX && tileY == other.tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(scaleBits) * 31 + tileX) * 31 + tileY;
+        }
+    }
+
+    public TileCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized BufferedImage get(Key key) {
+        return tiles.get(key);
+    }
+
+    public synchronized void put(Key key, BufferedImage tile) {
+        BufferedImage old = tiles.put(key, tile);
+        if (old != null) bytes -= sizeOf(old);
+        bytes += sizeOf(tile);
+        //usuwanie najdawniej uzytych kafelkow ponad limit
+        Iterator<Map.Entry<Key, BufferedImage>> it = tiles.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<Key, BufferedImage> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private static long sizeOf(BufferedImage tile) {
+        return (long) tile.getWidth() * tile.getHeight() * 4;
+    }
+}
@@ -1,44 +1,57 @@
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
+// lekki widok na jeden wierzcholek grafu CSR - dane trzymane sa w tablicach Graph
 public class Vertices {
-    private int id;
-    private int x;
-    private int y;
-    private int color;
-    private List<Vertices> neighbors;
+    private final Graph graph;
+    private final int id;
 
-    public Vertices(int id, int x, int y, int color){
+    Vertices(Graph graph, int id){
+        this.graph = graph;
         this.id = id;
-        this.x = x;
-        this.y = y;
-        this.color = color;
-        this.neighbors = new ArrayList<>();
     }
 
     public int getId(){
         return id;
     }
     public int getX(){
-        return x;
+        return graph.getX(id);
     }
     public int getY() {
-        return y;
+        return graph.getY(id);
     }
-    public int getColor(){return color;}
-    public void setColor(int color){this.color = color;}
+    public int getColor(){return graph.getColor(id);}
     public List<Vertices> getNeighbors(){
-        return neighbors;
+        int start = graph.neighborStart(id);
+        int end = graph.neighborEnd(id);
+        return new AbstractList<Vertices>() {
+            @Override
+            public Vertices get(int index) {
+                return new Vertices(graph, graph.neighborAt(start + index));
+            }
+
+            @Override
+            public int size() {
+                return end - start;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Vertices)) return false;
+        Vertices other = (Vertices) o;
+        return graph == other.graph && id == other.id;
     }
 
-    public void addNeighbor(Vertices neighbor){
-        if(!neighbors.contains(neighbor)){
-            neighbors.add(neighbor);
-        }
+    @Override
+    public int hashCode() {
+        return id;
     }
 
     @Override
     public String toString() {
-        return "Wierzcholek " + id + " (" + x + ", " + y + ")";
+        return "Wierzcholek " + id + " (" + getX() + ", " + getY() + ")";
     }
 }